@@ -44,8 +44,11 @@ public class CallbackController extends Controller {
 
         FrameworkAdapter.INSTANCE.applyDefaultSettingsIfUndefined(config);
 
+        final PlayFrameworkParameters parameters = new PlayFrameworkParameters(request);
         return CompletableFuture.supplyAsync(() ->
-                    (Result) config.getCallbackLogic().perform(config, defaultUrl, renewSession, defaultClient, new PlayFrameworkParameters(request))
-               , ec.current());
+                    (Result) config.getCallbackLogic().perform(config, defaultUrl, renewSession, defaultClient, parameters)
+               , ec.current())
+            // the redirection must only be sent once the session is written
+            .thenCompose(result -> parameters.getPendingWrites().await().thenApply(v -> result));
     }
 }
@@ -51,9 +51,12 @@ public class LogoutController extends Controller {
 
         FrameworkAdapter.INSTANCE.applyDefaultSettingsIfUndefined(config);
 
+        final PlayFrameworkParameters parameters = new PlayFrameworkParameters(request);
         return CompletableFuture.supplyAsync(() ->
                     (Result) config.getLogoutLogic().perform(config, defaultUrl, logoutUrlPattern, localLogout,
-                            destroySession, centralLogout, new PlayFrameworkParameters(request))
-                , ec.current());
+                            destroySession, centralLogout, parameters)
+                , ec.current())
+            // the response must only be sent once the session is destroyed
+            .thenCompose(result -> parameters.getPendingWrites().await().thenApply(v -> result));
     }
 }
@@ -4,6 +4,8 @@ import org.pac4j.core.context.Cookie;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.util.CommonHelper;
+import org.pac4j.play.store.PendingWrites;
+import org.pac4j.play.store.RequestSessionValues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import play.api.mvc.AnyContentAsFormUrlEncoded;
@@ -13,6 +15,7 @@ import play.api.mvc.RequestHeader;
 import play.api.mvc.request.AssignedCell;
 import play.api.mvc.request.RequestAttrKey;
 import play.libs.typedmap.TypedKey;
+import play.libs.typedmap.TypedMap;
 import play.mvc.Http;
 import play.mvc.Result;
 
@@ -49,6 +52,37 @@ public class PlayWebContext implements WebContext {
 
     protected Http.Session initialSession;
 
+    protected Map<String, RequestSessionValues> requestSessionValues = new HashMap<>();
+
+    // asynchronous writes of the session stores (shared with the framework parameters)
+    protected PendingWrites pendingWrites = new PendingWrites();
+
+    // parsed once, on first access
+    protected Map<String, String[]> bodyParameters;
+
+    protected Map<String, String[]> requestParameters;
+
+    // attached to the Play request when it is supplemented
+    protected Map<String, Object> requestAttributes;
+
+    private boolean requestAttributesLoaded;
+
+    // use the X-Forwarded-Proto/Host/Port headers set by a trusted reverse proxy
+    protected boolean trustForwardedHeaders;
+
+    // parsed once, on first access
+    protected String scheme;
+
+    protected String host;
+
+    protected String serverName;
+
+    protected int serverPort;
+
+    protected String fullRequestURL;
+
+    protected RequestCookies requestCookies;
+
     public PlayWebContext(final Http.RequestHeader javaRequest) {
         CommonHelper.assertNotNull("request", javaRequest);
         this.javaRequest = javaRequest;
@@ -81,8 +115,12 @@ public class PlayWebContext implements WebContext {
 
     @Override
     public Optional<String> getRequestParameter(final String name) {
-        final Map<String, String[]> parameters = getRequestParameters();
-        final String[] values = parameters.get(name);
+        // the query string parameters take precedence over the body parameters
+        final Optional<String> value = javaRequest.queryString(name);
+        if (value.isPresent()) {
+            return value;
+        }
+        final String[] values = getBodyParameters().get(name);
         if (values != null && values.length > 0) {
             return Optional.of(values[0]);
         }
@@ -91,22 +129,29 @@ public class PlayWebContext implements WebContext {
 
     @Override
     public Map<String, String[]> getRequestParameters() {
-        final Map<String, String[]> parameters = new HashMap<>();
-        final Object body = getBody();
-        Map<String, String[]> p = null;
-        if (body instanceof Http.RequestBody) {
-            p = ((Http.RequestBody) body).asFormUrlEncoded();
-        } else if (body instanceof AnyContentAsFormUrlEncoded) {
-            p = ScalaCompatibility.parseBody((AnyContentAsFormUrlEncoded) body);
-        }
-        if (p != null) {
-            parameters.putAll(p);
+        if (requestParameters == null) {
+            final Map<String, String[]> parameters = new HashMap<>(getBodyParameters());
+            final Map<String, String[]> urlParameters = javaRequest.queryString();
+            if (urlParameters != null) {
+                parameters.putAll(urlParameters);
+            }
+            requestParameters = Collections.unmodifiableMap(parameters);
         }
-        final Map<String, String[]> urlParameters = javaRequest.queryString();
-        if (urlParameters != null) {
-            parameters.putAll(urlParameters);
+        return requestParameters;
+    }
+
+    protected Map<String, String[]> getBodyParameters() {
+        if (bodyParameters == null) {
+            final Object body = getBody();
+            Map<String, String[]> p = null;
+            if (body instanceof Http.RequestBody) {
+                p = ((Http.RequestBody) body).asFormUrlEncoded();
+            } else if (body instanceof AnyContentAsFormUrlEncoded) {
+                p = ScalaCompatibility.parseBody((AnyContentAsFormUrlEncoded) body);
+            }
+            bodyParameters = p != null ? p : Collections.emptyMap();
         }
-        return parameters;
+        return bodyParameters;
     }
 
     protected Object getBody() {
@@ -130,34 +175,120 @@ public class PlayWebContext implements WebContext {
 
     @Override
     public String getServerName() {
-        String[] split = javaRequest.host().split(":");
-        return split[0];
+        parseHost();
+        return serverName;
     }
 
     @Override
     public int getServerPort() {
-        String defaultPort = javaRequest.secure() ? "443" : "80";
-
-        String[] split = javaRequest.host().split(":");
-        String portStr = split.length > 1 ? split[1] : defaultPort;
-        return Integer.parseInt(portStr);
+        parseHost();
+        return serverPort;
     }
 
     @Override
     public String getScheme() {
-        if (javaRequest.secure()) {
-            return "https";
-        } else {
-            return "http";
-        }
+        parseHost();
+        return scheme;
     }
 
     @Override
-    public boolean isSecure() { return javaRequest.secure(); }
+    public boolean isSecure() {
+        return "https".equals(getScheme());
+    }
 
     @Override
     public String getFullRequestURL() {
-        return getScheme() + "://" + javaRequest.host() + javaRequest.uri();
+        if (fullRequestURL == null) {
+            parseHost();
+            fullRequestURL = scheme + "://" + host + javaRequest.uri();
+        }
+        return fullRequestURL;
+    }
+
+    public boolean isTrustForwardedHeaders() {
+        return trustForwardedHeaders;
+    }
+
+    public void setTrustForwardedHeaders(final boolean trustForwardedHeaders) {
+        this.trustForwardedHeaders = trustForwardedHeaders;
+        this.scheme = null;
+        this.fullRequestURL = null;
+    }
+
+    /**
+     * Parse the scheme, server name and port from the request (and the forwarded headers if they are trusted),
+     * only once. The server name of an IPv6 literal keeps its brackets.
+     */
+    protected void parseHost() {
+        if (scheme != null) {
+            return;
+        }
+        String forwardedProto = null;
+        String forwardedHost = null;
+        String forwardedPort = null;
+        if (trustForwardedHeaders) {
+            forwardedProto = getFirstHeaderValue("X-Forwarded-Proto");
+            forwardedHost = getFirstHeaderValue("X-Forwarded-Host");
+            forwardedPort = getFirstHeaderValue("X-Forwarded-Port");
+        }
+        final boolean secure = forwardedProto != null ? "https".equalsIgnoreCase(forwardedProto) : javaRequest.secure();
+        final int defaultPort = secure ? 443 : 80;
+        String hostValue = forwardedHost != null ? forwardedHost : javaRequest.host();
+        if (hostValue == null) {
+            hostValue = "";
+        }
+
+        // the port separator is the single colon after the (optional) IPv6 literal
+        final int from = hostValue.startsWith("[") ? Math.max(hostValue.indexOf(']'), 0) : 0;
+        int separator = hostValue.indexOf(':', from);
+        if (separator >= 0 && from == 0 && hostValue.indexOf(':', separator + 1) >= 0) {
+            // unbracketed IPv6 literal: no port
+            separator = -1;
+        }
+        int port = separator >= 0 ? parsePort(hostValue, separator + 1, hostValue.length(), defaultPort) : defaultPort;
+        final String name = separator >= 0 ? hostValue.substring(0, separator) : hostValue;
+        if (forwardedPort != null) {
+            port = parsePort(forwardedPort, 0, forwardedPort.length(), port);
+            // the host is rebuilt so that the URLs use the forwarded port as well
+            if (port == defaultPort) {
+                hostValue = name;
+            } else {
+                hostValue = (name.indexOf(':') >= 0 && !name.startsWith("[") ? "[" + name + "]" : name) + ":" + port;
+            }
+        }
+
+        this.serverName = name;
+        this.serverPort = port;
+        this.host = hostValue;
+        this.scheme = secure ? "https" : "http";
+    }
+
+    private String getFirstHeaderValue(final String name) {
+        final String value = javaRequest.header(name).orElse(null);
+        if (value == null) {
+            return null;
+        }
+        final int comma = value.indexOf(',');
+        final String first = (comma >= 0 ? value.substring(0, comma) : value).trim();
+        return first.isEmpty() ? null : first;
+    }
+
+    private static int parsePort(final String value, final int start, final int end, final int defaultPort) {
+        if (start >= end) {
+            return defaultPort;
+        }
+        int port = 0;
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return defaultPort;
+            }
+            port = port * 10 + (c - '0');
+            if (port > 65535) {
+                return defaultPort;
+            }
+        }
+        return port;
     }
 
     @Override
@@ -167,35 +298,118 @@ public class PlayWebContext implements WebContext {
 
     @Override
     public Optional<Object> getRequestAttribute(final String name) {
-        Map<String, Object> attributes = javaRequest.attrs().getOptional(PAC4J_REQUEST_ATTRIBUTES).orElse(new HashMap<>());
-        return Optional.ofNullable(attributes.get(name));
+        final Map<String, Object> attributes = loadRequestAttributes();
+        return attributes != null ? Optional.ofNullable(attributes.get(name)) : Optional.empty();
     }
 
     @Override
     public void setRequestAttribute(final String name, final Object value) {
-        Map<String, Object> attributes = javaRequest.attrs().getOptional(PAC4J_REQUEST_ATTRIBUTES).orElse(new HashMap<>());
-        attributes.put(name, value);
-        javaRequest = javaRequest.addAttr(PAC4J_REQUEST_ATTRIBUTES, attributes);
+        if (loadRequestAttributes() == null) {
+            requestAttributes = new HashMap<>();
+        }
+        requestAttributes.put(name, value);
+    }
+
+    protected Map<String, Object> loadRequestAttributes() {
+        if (!requestAttributesLoaded) {
+            requestAttributes = javaRequest.attrs().getOptional(PAC4J_REQUEST_ATTRIBUTES).orElse(null);
+            requestAttributesLoaded = true;
+        }
+        return requestAttributes;
+    }
+
+    /**
+     * Get the attributes of the Play request along with the pac4j request attributes.
+     *
+     * @return the attributes
+     */
+    protected TypedMap getSupplementedAttrs() {
+        final TypedMap attrs = javaRequest.attrs();
+        return requestAttributes != null ? attrs.put(PAC4J_REQUEST_ATTRIBUTES, requestAttributes) : attrs;
     }
 
     @Override
     public Collection<Cookie> getRequestCookies() {
-        final List<Cookie> cookies = new ArrayList<>();
-        final Http.Cookies httpCookies = javaRequest.cookies();
-        httpCookies.forEach(httpCookie -> {
-            final Cookie cookie = new Cookie(httpCookie.name(), httpCookie.value());
-            if(httpCookie.domain() != null) {
-                cookie.setDomain(httpCookie.domain());
+        return getRequestCookiesView();
+    }
+
+    protected RequestCookies getRequestCookiesView() {
+        if (requestCookies == null) {
+            requestCookies = new RequestCookies(javaRequest.cookies());
+        }
+        return requestCookies;
+    }
+
+    /**
+     * Get a request cookie by name, only converting this cookie.
+     *
+     * @param name the cookie name
+     * @return the cookie (if it exists)
+     */
+    public Optional<Cookie> getRequestCookie(final String name) {
+        return Optional.ofNullable(getRequestCookiesView().get(name));
+    }
+
+    protected Cookie convertCookie(final Http.Cookie httpCookie) {
+        final Cookie cookie = new Cookie(httpCookie.name(), httpCookie.value());
+        if(httpCookie.domain() != null) {
+            cookie.setDomain(httpCookie.domain());
+        }
+        cookie.setHttpOnly(httpCookie.httpOnly());
+        if(httpCookie.maxAge() != null) {
+            cookie.setMaxAge(httpCookie.maxAge());
+        }
+        cookie.setPath(httpCookie.path());
+        cookie.setSecure(httpCookie.secure());
+        return cookie;
+    }
+
+    /**
+     * An unmodifiable view of the request cookies: a cookie is looked up by name in the Play cookies and converted
+     * on first access only. The list of all the cookies is only built when iterating.
+     */
+    protected class RequestCookies extends AbstractCollection<Cookie> {
+
+        private final Http.Cookies httpCookies;
+
+        private final Map<String, Optional<Cookie>> cookiesByName = new HashMap<>();
+
+        private List<Cookie> cookies;
+
+        protected RequestCookies(final Http.Cookies httpCookies) {
+            this.httpCookies = httpCookies;
+        }
+
+        protected Cookie get(final String name) {
+            if (httpCookies == null) {
+                return null;
             }
-            cookie.setHttpOnly(httpCookie.httpOnly());
-            if(httpCookie.maxAge() != null) {
-                cookie.setMaxAge(httpCookie.maxAge());
+            return cookiesByName.computeIfAbsent(name, n -> httpCookies.get(n).map(PlayWebContext.this::convertCookie)).orElse(null);
+        }
+
+        protected List<Cookie> getCookies() {
+            if (cookies == null) {
+                final List<Cookie> list = new ArrayList<>();
+                if (httpCookies != null) {
+                    for (final Http.Cookie httpCookie : httpCookies) {
+                        final Optional<Cookie> cookie = cookiesByName.get(httpCookie.name());
+                        list.add(cookie != null && cookie.isPresent() ? cookie.get() : convertCookie(httpCookie));
+                    }
+                }
+                cookies = Collections.unmodifiableList(list);
             }
-            cookie.setPath(httpCookie.path());
-            cookie.setSecure(httpCookie.secure());
-            cookies.add(cookie);
-        });
-        return cookies;
+            return cookies;
+        }
+
+        @Override
+        public Iterator<Cookie> iterator() {
+            return getCookies().iterator();
+        }
+
+        @Override
+        public int size() {
+            return getCookies().size();
+        }
     }
 
     @Override
@@ -228,6 +442,9 @@ public class PlayWebContext implements WebContext {
         if (maxAge != -1) {
             cookieBuilder.withMaxAge(Duration.of(maxAge, ChronoUnit.SECONDS));
         }
+        if (cookie.getSameSitePolicy() != null) {
+            Http.Cookie.SameSite.parse(cookie.getSameSitePolicy()).ifPresent(cookieBuilder::withSameSite);
+        }
         final Http.Cookie responseCookie = cookieBuilder.build();
         responseCookies.add(responseCookie);
     }
@@ -258,8 +475,64 @@ public class PlayWebContext implements WebContext {
         this.session = session;
     }
 
+    /**
+     * Get the session values cached for the time of the request by a session store.
+     *
+     * @param key the key under which the session store caches its values
+     * @return the cached session values (or <code>null</code>)
+     */
+    public RequestSessionValues getRequestSessionValues(final String key) {
+        return requestSessionValues.get(key);
+    }
+
+    /**
+     * Cache session values for the time of the request.
+     *
+     * @param key the key under which the session store caches its values
+     * @param values the session values (<code>null</code> to remove them)
+     */
+    public void setRequestSessionValues(final String key, final RequestSessionValues values) {
+        if (values == null) {
+            requestSessionValues.remove(key);
+        } else {
+            requestSessionValues.put(key, values);
+        }
+    }
+
+    public PendingWrites getPendingWrites() {
+        return pendingWrites;
+    }
+
+    public void setPendingWrites(final PendingWrites pendingWrites) {
+        this.pendingWrites = pendingWrites;
+    }
+
+    /**
+     * Write the session values modified during the request by the session stores.
+     */
+    public void flushRequestSessionValues() {
+        for (final RequestSessionValues values : requestSessionValues.values()) {
+            values.flush(this);
+        }
+    }
+
+    /**
+     * Whether the response must be supplemented: the session values not written yet are only written
+     * when supplementing the response.
+     *
+     * @return whether the response must be supplemented
+     */
     public boolean hasResponseModifications() {
-        return !responseCookies.isEmpty() || !responseHeaders.isEmpty() || responseContentType != null || hasSessionChanged();
+        return hasDirtyRequestSessionValues() || !responseCookies.isEmpty() || !responseHeaders.isEmpty() || responseContentType != null || hasSessionChanged();
+    }
+
+    protected boolean hasDirtyRequestSessionValues() {
+        for (final RequestSessionValues values : requestSessionValues.values()) {
+            if (values.isDirty()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected boolean hasSessionChanged() {
@@ -273,21 +546,25 @@ public class PlayWebContext implements WebContext {
     }
 
     public Http.Request supplementRequest(final Http.Request request) {
-        logger.trace("supplement request with: {} and session: {}", this.javaRequest.attrs(), session);
-        return request.withAttrs(this.javaRequest.attrs()).addAttr(RequestAttrKey.Session().asJava(), new AssignedCell<>(session.asScala()));
+        flushRequestSessionValues();
+        logger.trace("supplement request with: {} and session: {}", requestAttributes, session);
+        return request.withAttrs(getSupplementedAttrs()).addAttr(RequestAttrKey.Session().asJava(), new AssignedCell<>(session.asScala()));
     }
 
     public Http.RequestHeader supplementRequest(final Http.RequestHeader request) {
-        logger.trace("supplement request with: {} and session: {}", this.javaRequest.attrs(), session);
-        return request.withAttrs(this.javaRequest.attrs()).addAttr(RequestAttrKey.Session().asJava(), new AssignedCell<>(session.asScala()));
+        flushRequestSessionValues();
+        logger.trace("supplement request with: {} and session: {}", requestAttributes, session);
+        return request.withAttrs(getSupplementedAttrs()).addAttr(RequestAttrKey.Session().asJava(), new AssignedCell<>(session.asScala()));
     }
 
     public <A> Request<A> supplementRequest(Request<A> request) {
-        logger.trace("supplement request with: {} and session: {}", this.javaRequest.attrs(), session);
-        return request.withAttrs(this.javaRequest.attrs().asScala()).addAttr(RequestAttrKey.Session(), new AssignedCell<>(session.asScala()));
+        flushRequestSessionValues();
+        logger.trace("supplement request with: {} and session: {}", requestAttributes, session);
+        return request.withAttrs(getSupplementedAttrs().asScala()).addAttr(RequestAttrKey.Session(), new AssignedCell<>(session.asScala()));
     }
 
     public Result supplementResponse(final Result result) {
+        flushRequestSessionValues();
         Result r = result;
         if (responseCookies.size() > 0) {
             logger.trace("supplement response with cookies: {}", responseCookies);
@@ -15,16 +15,35 @@ public class PlayContextFactory implements WebContextFactory {
 
     public static final PlayContextFactory INSTANCE = new PlayContextFactory();
 
-    protected PlayContextFactory() {}
+    // use the X-Forwarded-* headers to compute the scheme, host and port of the request
+    private final boolean trustForwardedHeaders;
+
+    protected PlayContextFactory() {
+        this(false);
+    }
+
+    /**
+     * Build a factory for the web contexts.
+     *
+     * @param trustForwardedHeaders whether the X-Forwarded-* headers are set by a trusted reverse proxy
+     */
+    public PlayContextFactory(final boolean trustForwardedHeaders) {
+        this.trustForwardedHeaders = trustForwardedHeaders;
+    }
 
     @Override
     public PlayWebContext newContext(final FrameworkParameters parameters) {
         if (parameters instanceof PlayFrameworkParameters playFrameworkParameters) {
+            final PlayWebContext context;
             if (playFrameworkParameters.getJavaRequest() != null) {
-                return new PlayWebContext(playFrameworkParameters.getJavaRequest());
+                context = new PlayWebContext(playFrameworkParameters.getJavaRequest());
             } else {
-                return new PlayWebContext(playFrameworkParameters.getScalaRequest());
+                context = new PlayWebContext(playFrameworkParameters.getScalaRequest());
             }
+            context.setTrustForwardedHeaders(trustForwardedHeaders);
+            playFrameworkParameters.getRequestSessionValues().forEach(context::setRequestSessionValues);
+            context.setPendingWrites(playFrameworkParameters.getPendingWrites());
+            return context;
         }
         throw new TechnicalException("Bad parameter type");
     }
@@ -2,8 +2,14 @@ package org.pac4j.play.context;
 
 import lombok.Getter;
 import org.pac4j.core.context.FrameworkParameters;
+import org.pac4j.play.store.PendingWrites;
+import org.pac4j.play.store.RequestSessionValues;
 import play.api.mvc.RequestHeader;
 import play.mvc.Http;
+
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Play framework parameters
  *
@@ -17,6 +23,12 @@ public class PlayFrameworkParameters implements FrameworkParameters {
 
     private RequestHeader scalaRequest;
 
+    // session values loaded before the web context is created
+    private final Map<String, RequestSessionValues> requestSessionValues = new HashMap<>();
+
+    // asynchronous writes of the web contexts created from these parameters
+    private final PendingWrites pendingWrites = new PendingWrites();
+
     public PlayFrameworkParameters(final Http.RequestHeader javaRequest) {
         this.javaRequest = javaRequest;
     }
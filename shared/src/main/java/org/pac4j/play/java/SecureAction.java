@@ -1,5 +1,6 @@
 package org.pac4j.play.java;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.pac4j.core.adapter.FrameworkAdapter;
@@ -10,16 +11,23 @@ import org.pac4j.core.util.Pac4jConstants;
 import org.pac4j.play.PlayWebContext;
 import org.pac4j.play.context.PlayFrameworkParameters;
 import org.pac4j.play.result.PlayWebContextResultHolder;
+import org.pac4j.play.store.PlayAsyncCacheSessionStore;
+import play.libs.concurrent.HttpExecutionContext;
 import play.mvc.Action;
 import play.mvc.Http;
 import play.mvc.Result;
 
 import javax.inject.Inject;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 /**
  * <p>This filter protects an URL.</p>
@@ -47,8 +55,17 @@ public class SecureAction extends Action<Result> {
         }
     }
 
+    // the configurations derived by original configuration: a new action is built for each request
+    private static final Map<ConfigKey, DerivedConfig> DERIVED_CONFIGS = new ConcurrentHashMap<>();
+
+    private static final ReferenceQueue<Config> UNUSED_CONFIGS = new ReferenceQueue<>();
+
+    @Getter
     final private Config config;
 
+    @Inject
+    protected HttpExecutionContext ec;
+
     @Inject
     public SecureAction(final Config config) {
         this.config = config;
@@ -76,29 +93,99 @@ public class SecureAction extends Action<Result> {
 
         FrameworkAdapter.INSTANCE.applyDefaultSettingsIfUndefined(config);
 
-        val actionAdapterWrapper = (HttpActionAdapter) (action, webCtx) -> CompletableFuture.completedFuture(config.getHttpActionAdapter().adapt(action, webCtx));
+        val configSecurity = getConfigSecurity();
 
-        val configSecurity = config.withHttpActionAdapter(actionAdapterWrapper);
+        // load the session values without blocking before running the security logic
+        if (config.getSessionStoreFactory().newSessionStore(parameters) instanceof PlayAsyncCacheSessionStore asyncSessionStore) {
+            return thenComposeInContext(asyncSessionStore.preload(parameters),
+                v -> performSecurityLogic(configSecurity, parameters, clients, authorizers, matchers));
+        }
+        return performSecurityLogic(configSecurity, parameters, clients, authorizers, matchers);
+    }
 
+    protected CompletionStage<Result> performSecurityLogic(final Config configSecurity, final PlayFrameworkParameters parameters,
+                                                           final String clients, final String authorizers, final String matchers) {
         return (CompletionStage<Result>) configSecurity.getSecurityLogic().perform(configSecurity, (webCtx, session, profiles) -> {
                 val playWebContext = (PlayWebContext) webCtx;
 	            // when called from Scala
 	            if (delegate == null) {
-	                return CompletableFuture.completedFuture(new PlayWebContextResultHolder(playWebContext));
+	                playWebContext.flushRequestSessionValues();
+	                return awaitPendingWrites(playWebContext, new PlayWebContextResultHolder(playWebContext));
 	            } else {
-	                return delegate.call(playWebContext.supplementRequest((Http.Request)
-                        playWebContext.getNativeJavaRequest())).thenApply(result -> {
+	                final Http.Request request = playWebContext.supplementRequest((Http.Request) playWebContext.getNativeJavaRequest());
+	                return thenComposeInContext(playWebContext.getPendingWrites().await(), v -> delegate.call(request))
+                        .thenCompose(result -> {
                             // Only supplement the response if there are cookies or headers to add
                             // This avoids reissuing session cookies on every request
                             if (playWebContext.hasResponseModifications()) {
-                                return playWebContext.supplementResponse(result);
+                                return awaitPendingWrites(playWebContext, playWebContext.supplementResponse(result));
                             }
-                            return result;
+                            return awaitPendingWrites(playWebContext, result);
                         });
 	            }
             }, clients, authorizers, matchers, parameters);
     }
 
+    /**
+     * Continue in the HTTP execution context of Play, not in the thread which completed the stage (like a thread
+     * of the cache). Without injected execution context, the function is run by the completing thread.
+     *
+     * @param stage the stage
+     * @param fn the function to continue with
+     * @param <T> the type of the stage
+     * @param <R> the type of the result
+     * @return the completion of the result
+     */
+    protected <T, R> CompletionStage<R> thenComposeInContext(final CompletionStage<T> stage,
+                                                            final Function<? super T, ? extends CompletionStage<R>> fn) {
+        return ec != null ? stage.thenComposeAsync(fn, ec.current()) : stage.thenCompose(fn);
+    }
+
+    /**
+     * Complete the result once the asynchronous session writes of the request are done.
+     *
+     * @param context the web context
+     * @param result the result
+     * @param <R> the type of the result
+     * @return the completion of the result
+     */
+    protected <R> CompletionStage<R> awaitPendingWrites(final PlayWebContext context, final R result) {
+        return awaitWrites(context, result);
+    }
+
+    private static <R> CompletionStage<R> awaitWrites(final PlayWebContext context, final R result) {
+        return context.getPendingWrites().await().thenApply(v -> result);
+    }
+
+    /**
+     * Get the configuration with the wrapped HTTP action adapter. It is shared by all the actions of the same configuration
+     * and only derived again when the configuration changes.
+     *
+     * @return the configuration for the security logic
+     */
+    protected Config getConfigSecurity() {
+        final ConfigKey key = new ConfigKey(config, null);
+        final DerivedConfig current = DERIVED_CONFIGS.get(key);
+        if (current != null && current.isDerivedFrom(config)) {
+            return current.configSecurity;
+        }
+        expungeUnusedConfigs();
+        // the wrapper only references the adapter, so that the original configuration can be garbage collected
+        final HttpActionAdapter actionAdapter = config.getHttpActionAdapter();
+        final HttpActionAdapter actionAdapterWrapper =
+            (action, webCtx) -> awaitWrites((PlayWebContext) webCtx, actionAdapter.adapt(action, webCtx));
+        final DerivedConfig derived = new DerivedConfig(config, config.withHttpActionAdapter(actionAdapterWrapper));
+        DERIVED_CONFIGS.put(new ConfigKey(config, UNUSED_CONFIGS), derived);
+        return derived.configSecurity;
+    }
+
+    private static void expungeUnusedConfigs() {
+        Reference<? extends Config> reference;
+        while ((reference = UNUSED_CONFIGS.poll()) != null) {
+            DERIVED_CONFIGS.remove(reference);
+        }
+    }
+
     protected String getStringParam(final InvocationHandler invocationHandler, final Method method, final String defaultValue) throws Throwable {
         String value = (String) invocationHandler.invoke(configuration, method, null);
         if (value == null) {
@@ -116,4 +203,76 @@ public class SecureAction extends Action<Result> {
         LOGGER.debug("Boolean param: {}: {}", method.getName(), value);
         return value;
     }
+
+    /**
+     * A weak reference to a configuration, compared by identity.
+     */
+    private static final class ConfigKey extends WeakReference<Config> {
+
+        private final int hash;
+
+        private ConfigKey(final Config config, final ReferenceQueue<Config> queue) {
+            super(config, queue);
+            this.hash = System.identityHashCode(config);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConfigKey other)) {
+                return false;
+            }
+            final Config config = get();
+            return config != null && config == other.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * A configuration derived from the components of the original configuration.
+     */
+    private static final class DerivedConfig {
+
+        private final Object httpActionAdapter;
+
+        private final Object clients;
+
+        private final Object authorizers;
+
+        private final Object matchers;
+
+        private final Object securityLogic;
+
+        private final Object webContextFactory;
+
+        private final Object sessionStoreFactory;
+
+        private final Object profileManagerFactory;
+
+        private final Config configSecurity;
+
+        private DerivedConfig(final Config config, final Config configSecurity) {
+            this.httpActionAdapter = config.getHttpActionAdapter();
+            this.clients = config.getClients();
+            this.authorizers = config.getAuthorizers();
+            this.matchers = config.getMatchers();
+            this.securityLogic = config.getSecurityLogic();
+            this.webContextFactory = config.getWebContextFactory();
+            this.sessionStoreFactory = config.getSessionStoreFactory();
+            this.profileManagerFactory = config.getProfileManagerFactory();
+            this.configSecurity = configSecurity;
+        }
+
+        private boolean isDerivedFrom(final Config config) {
+            return config.getHttpActionAdapter() == httpActionAdapter && config.getClients() == clients && config.getAuthorizers() == authorizers && config.getMatchers() == matchers
+                && config.getSecurityLogic() == securityLogic && config.getWebContextFactory() == webContextFactory
+                && config.getSessionStoreFactory() == sessionStoreFactory && config.getProfileManagerFactory() == profileManagerFactory;
+        }
+    }
 }
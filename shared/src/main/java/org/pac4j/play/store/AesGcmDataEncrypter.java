@@ -0,0 +1,139 @@
+package org.pac4j.play.store;
+
+import org.pac4j.core.util.CommonHelper;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A DataEncrypter based on the authenticated AES-GCM encryption, with support for key rotation.
+ *
+ * A keyring is defined: one active key used for encryption and decryption and any number of keys only used for decryption.
+ * Each encrypted value starts with a version byte and the identifier of the key used, so that values encrypted
+ * on other nodes or before a restart/key rotation can still be decrypted as long as their key is in the keyring:
+ * <code>version (1 byte) | key identifier (1 byte) | IV (12 bytes) | ciphertext + tag (16 bytes)</code>.
+ * The header is authenticated along with the ciphertext.
+ *
+ * As for the {@link JdkAesDataEncrypter}, the ciphers are kept in a bounded pool and reused across calls.
+ *
+ * @since 13.0.4
+ */
+public final class AesGcmDataEncrypter implements DataEncrypter {
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 2;
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int TAG_LENGTH = 16;
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final SecretKeySpec[] keys = new SecretKeySpec[256];
+
+    private final int activeKeyId;
+
+    private final Queue<Cipher> ciphers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public AesGcmDataEncrypter(final byte[] key) {
+        this(Map.of(0, key), 0);
+    }
+
+    /**
+     * Define the keyring.
+     *
+     * @param keys the AES keys (16, 24 or 32 bytes) by identifier (from 0 to 255)
+     * @param activeKeyId the identifier of the key used for encryption
+     */
+    public AesGcmDataEncrypter(final Map<Integer, byte[]> keys, final int activeKeyId) {
+        CommonHelper.assertNotNull("keys", keys);
+        for (final Map.Entry<Integer, byte[]> entry : keys.entrySet()) {
+            final int keyId = entry.getKey();
+            final byte[] key = entry.getValue();
+            if (keyId < 0 || keyId > 255) {
+                throw new IllegalArgumentException("Key identifier must be between 0 and 255");
+            }
+            CommonHelper.assertNotNull("key", key);
+            if (key.length != 16 && key.length != 24 && key.length != 32) {
+                throw new IllegalArgumentException("AES key must be 16, 24 or 32 bytes");
+            }
+            this.keys[keyId] = new SecretKeySpec(key.clone(), "AES");
+        }
+        if (activeKeyId < 0 || activeKeyId > 255 || this.keys[activeKeyId] == null) {
+            throw new IllegalArgumentException("The active key must be defined in the keys");
+        }
+        this.activeKeyId = activeKeyId;
+    }
+
+    @Override
+    public byte[] decrypt(byte[] encryptedBytes) {
+        if (encryptedBytes == null) {
+            return null;
+        }
+        if (encryptedBytes.length < HEADER_LENGTH + IV_LENGTH + TAG_LENGTH) {
+            throw new RuntimeException("AES-GCM decryption error: data too short");
+        }
+        if (encryptedBytes[0] != VERSION) {
+            throw new RuntimeException("AES-GCM decryption error: unsupported version " + encryptedBytes[0]);
+        }
+        final int keyId = encryptedBytes[1] & 0xFF;
+        final SecretKeySpec key = keys[keyId];
+        if (key == null) {
+            throw new RuntimeException("AES-GCM decryption error: unknown key " + keyId);
+        }
+        try {
+            final Cipher cipher = acquireCipher();
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH * 8, encryptedBytes, HEADER_LENGTH, IV_LENGTH));
+            cipher.updateAAD(encryptedBytes, 0, HEADER_LENGTH);
+            final int offset = HEADER_LENGTH + IV_LENGTH;
+            final byte[] output = cipher.doFinal(encryptedBytes, offset, encryptedBytes.length - offset);
+            ciphers.offer(cipher);
+            return output;
+        } catch (Exception e) {
+            throw new RuntimeException("AES-GCM decryption error", e);
+        }
+    }
+
+    @Override
+    public byte[] encrypt(byte[] rawBytes) {
+        if (rawBytes == null) {
+            return null;
+        }
+        try {
+            final byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            final byte[] output = new byte[HEADER_LENGTH + IV_LENGTH + rawBytes.length + TAG_LENGTH];
+            output[0] = VERSION;
+            output[1] = (byte) activeKeyId;
+            System.arraycopy(iv, 0, output, HEADER_LENGTH, IV_LENGTH);
+
+            final Cipher cipher = acquireCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, keys[activeKeyId], new GCMParameterSpec(TAG_LENGTH * 8, iv));
+            cipher.updateAAD(output, 0, HEADER_LENGTH);
+            cipher.doFinal(rawBytes, 0, rawBytes.length, output, HEADER_LENGTH + IV_LENGTH);
+            ciphers.offer(cipher);
+            return output;
+        } catch (Exception e) {
+            throw new RuntimeException("AES-GCM encryption error", e);
+        }
+    }
+
+    private Cipher acquireCipher() throws GeneralSecurityException {
+        final Cipher cipher = ciphers.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        return Cipher.getInstance(TRANSFORMATION);
+    }
+}
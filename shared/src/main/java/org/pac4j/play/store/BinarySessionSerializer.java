@@ -0,0 +1,544 @@
+package org.pac4j.play.store;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.profile.BasicUserProfile;
+import org.pac4j.core.util.serializer.JsonSerializer;
+import org.pac4j.core.util.serializer.Serializer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * A compact binary serializer for the session values: strings, primitives, dates, URIs, locales, collections, maps
+ * and user profiles.
+ *
+ * Each value starts with a one-byte type tag, lengths and numbers are written as variable-length integers
+ * and the profile class names are only written once per serialization (then referenced by their index).
+ * The values of other types are serialized by the fallback serializer (the {@link JsonSerializer} by default).
+ * As it does not record the type of the final classes, the common ones (like {@link URI} and {@link Locale}, used by
+ * the profile attributes) have their own type tags, as well as the dates of a {@link Date} subclass.
+ *
+ * The serialized data starts with a magic byte and the format version. Data not starting with the magic byte
+ * (like data serialized before by the {@link JsonSerializer}) is deserialized by the fallback serializer.
+ *
+ * Profiles are serialized via their common properties (identifier, client name, linked identifier, remembered flag,
+ * roles, attributes and authentication attributes), only if their class (a {@link BasicUserProfile} subclass) defines
+ * no additional field and has a public no-arg constructor. Otherwise, the fallback serializer is used.
+ *
+ * It is not the default serializer of the {@link PlayCookieSessionStore}: the preset dictionary of the default
+ * {@link DeflaterCompressionCodec} is built for the JSON serialization, so a dictionary made of the strings of
+ * the binary format should be defined when using both.
+ *
+ * @since 13.0.4
+ */
+@Getter
+@Setter
+public class BinarySessionSerializer implements Serializer {
+
+    static final byte MAGIC = (byte) 0xB5;
+
+    static final byte VERSION = 2;
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte TRUE = 2;
+    static final byte FALSE = 3;
+    static final byte INTEGER = 4;
+    static final byte LONG = 5;
+    static final byte DOUBLE = 6;
+    static final byte DATE = 7;
+    static final byte LIST = 8;
+    static final byte SET = 9;
+    static final byte MAP = 10;
+    static final byte PROFILE = 11;
+    static final byte FALLBACK = 12;
+    // since version 2
+    static final byte URI_VALUE = 13;
+    static final byte LOCALE = 14;
+    static final byte DATE_SUBCLASS = 15;
+
+    private static final ClassValue<Boolean> SUPPORTED_PROFILE_CLASSES = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            if (!BasicUserProfile.class.isAssignableFrom(type)) {
+                return false;
+            }
+            try {
+                type.getConstructor();
+            } catch (final NoSuchMethodException e) {
+                return false;
+            }
+            for (Class<?> c = type; c != BasicUserProfile.class; c = c.getSuperclass()) {
+                for (final Field field : c.getDeclaredFields()) {
+                    final int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    };
+
+    private Serializer fallbackSerializer = new JsonSerializer();
+
+    @Override
+    public String serializeToString(final Object obj) {
+        final byte[] bytes = serializeToBytes(obj);
+        return bytes != null ? Base64.getEncoder().encodeToString(bytes) : null;
+    }
+
+    @Override
+    public byte[] serializeToBytes(final Object obj) {
+        if (obj == null) {
+            return null;
+        }
+        final Output output = new Output();
+        output.writeByte(MAGIC);
+        output.writeByte(VERSION);
+        writeValue(output, obj);
+        return output.toByteArray();
+    }
+
+    @Override
+    public Object deserializeFromString(final String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        final byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encoded);
+        } catch (final IllegalArgumentException e) {
+            return fallbackSerializer.deserializeFromString(encoded);
+        }
+        if (!isBinary(bytes)) {
+            return fallbackSerializer.deserializeFromString(encoded);
+        }
+        return deserializeFromBytes(bytes);
+    }
+
+    @Override
+    public Object deserializeFromBytes(final byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        if (!isBinary(encoded)) {
+            return fallbackSerializer.deserializeFromBytes(encoded);
+        }
+        if (encoded[1] > VERSION) {
+            throw new TechnicalException("Unsupported binary serialization version: " + encoded[1]);
+        }
+        try {
+            return readValue(new Input(encoded, 2));
+        } catch (final IndexOutOfBoundsException e) {
+            throw new TechnicalException("Truncated binary serialization", e);
+        }
+    }
+
+    protected boolean isBinary(final byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == MAGIC;
+    }
+
+    protected void writeValue(final Output output, final Object value) {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String s) {
+            output.writeByte(STRING);
+            output.writeString(s);
+        } else if (value instanceof Boolean b) {
+            output.writeByte(b ? TRUE : FALSE);
+        } else if (value instanceof Integer i) {
+            output.writeByte(INTEGER);
+            output.writeVarLong(zigZag(i));
+        } else if (value instanceof Long l) {
+            output.writeByte(LONG);
+            output.writeVarLong(zigZag(l));
+        } else if (value instanceof Double d) {
+            output.writeByte(DOUBLE);
+            output.writeLong(Double.doubleToLongBits(d));
+        } else if (value.getClass() == Date.class) {
+            output.writeByte(DATE);
+            output.writeVarLong(zigZag(((Date) value).getTime()));
+        } else if (value instanceof Date date) {
+            output.writeByte(DATE_SUBCLASS);
+            writeDate(output, date);
+        } else if (value instanceof URI uri) {
+            output.writeByte(URI_VALUE);
+            output.writeString(uri.toString());
+        } else if (value instanceof Locale locale) {
+            output.writeByte(LOCALE);
+            output.writeString(locale.toLanguageTag());
+        } else if (value instanceof List<?> list) {
+            output.writeByte(LIST);
+            writeElements(output, list);
+        } else if (value instanceof Set<?> set) {
+            output.writeByte(SET);
+            writeElements(output, set);
+        } else if (value instanceof Map<?, ?> map) {
+            output.writeByte(MAP);
+            writeEntries(output, map);
+        } else if (value instanceof BasicUserProfile profile && SUPPORTED_PROFILE_CLASSES.get(profile.getClass())) {
+            output.writeByte(PROFILE);
+            writeProfile(output, profile);
+        } else {
+            output.writeByte(FALLBACK);
+            output.writeBytes(fallbackSerializer.serializeToBytes(value));
+        }
+    }
+
+    protected Object readValue(final Input input) {
+        final byte tag = input.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return input.readString();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                return (int) unZigZag(input.readVarLong());
+            case LONG:
+                return unZigZag(input.readVarLong());
+            case DOUBLE:
+                return Double.longBitsToDouble(input.readLong());
+            case DATE:
+                return new Date(unZigZag(input.readVarLong()));
+            case LIST:
+                final int listSize = input.readLength();
+                final List<Object> list = new ArrayList<>(listSize);
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readValue(input));
+                }
+                return list;
+            case SET:
+                final int setSize = input.readLength();
+                final Set<Object> set = new LinkedHashSet<>(capacity(setSize));
+                for (int i = 0; i < setSize; i++) {
+                    set.add(readValue(input));
+                }
+                return set;
+            case MAP:
+                final int mapSize = input.readLength();
+                final Map<Object, Object> map = new LinkedHashMap<>(capacity(mapSize));
+                for (int i = 0; i < mapSize; i++) {
+                    final Object key = readValue(input);
+                    map.put(key, readValue(input));
+                }
+                return map;
+            case PROFILE:
+                return readProfile(input);
+            case FALLBACK:
+                return fallbackSerializer.deserializeFromBytes(input.readBytes());
+            case URI_VALUE:
+                try {
+                    return new URI(input.readString());
+                } catch (final URISyntaxException e) {
+                    throw new TechnicalException("Invalid URI in binary serialization", e);
+                }
+            case LOCALE:
+                return Locale.forLanguageTag(input.readString());
+            case DATE_SUBCLASS:
+                return readDate(input);
+            default:
+                throw new TechnicalException("Unknown type tag in binary serialization: " + tag);
+        }
+    }
+
+    protected void writeProfile(final Output output, final BasicUserProfile profile) {
+        output.writeClassName(profile.getClass().getName());
+        output.writeNullableString(profile.getId());
+        output.writeNullableString(profile.getClientName());
+        output.writeNullableString(profile.getLinkedId());
+        output.writeByte(profile.isRemembered() ? TRUE : FALSE);
+        final Set<String> roles = profile.getRoles();
+        output.writeLength(roles.size());
+        for (final String role : roles) {
+            output.writeString(role);
+        }
+        writeEntries(output, profile.getAttributes());
+        writeEntries(output, profile.getAuthenticationAttributes());
+    }
+
+    protected BasicUserProfile readProfile(final Input input) {
+        final String className = input.readClassName();
+        final BasicUserProfile profile;
+        try {
+            final Class<?> type = Class.forName(className, false, getClassLoader());
+            if (!BasicUserProfile.class.isAssignableFrom(type)) {
+                throw new TechnicalException("Not a profile class: " + className);
+            }
+            profile = (BasicUserProfile) type.getConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new TechnicalException("Cannot instantiate profile: " + className, e);
+        }
+        final String id = input.readNullableString();
+        if (id != null) {
+            profile.setId(id);
+        }
+        profile.setClientName(input.readNullableString());
+        profile.setLinkedId(input.readNullableString());
+        profile.setRemembered(input.readByte() == TRUE);
+        final int nbRoles = input.readLength();
+        for (int i = 0; i < nbRoles; i++) {
+            profile.addRole(input.readString());
+        }
+        final int nbAttributes = input.readLength();
+        for (int i = 0; i < nbAttributes; i++) {
+            final String key = (String) readValue(input);
+            profile.addAttribute(key, readValue(input));
+        }
+        final int nbAuthenticationAttributes = input.readLength();
+        for (int i = 0; i < nbAuthenticationAttributes; i++) {
+            final String key = (String) readValue(input);
+            profile.addAuthenticationAttribute(key, readValue(input));
+        }
+        return profile;
+    }
+
+    protected void writeDate(final Output output, final Date date) {
+        output.writeClassName(date.getClass().getName());
+        output.writeVarLong(zigZag(date.getTime()));
+        if (date instanceof Timestamp timestamp) {
+            output.writeVarLong(timestamp.getNanos());
+        }
+    }
+
+    protected Date readDate(final Input input) {
+        final String className = input.readClassName();
+        final long time = unZigZag(input.readVarLong());
+        final Date date;
+        try {
+            final Class<?> type = Class.forName(className, false, getClassLoader());
+            if (!Date.class.isAssignableFrom(type)) {
+                throw new TechnicalException("Not a date class: " + className);
+            }
+            date = (Date) type.getConstructor(long.class).newInstance(time);
+        } catch (final ReflectiveOperationException e) {
+            throw new TechnicalException("Cannot instantiate date: " + className, e);
+        }
+        if (date instanceof Timestamp timestamp) {
+            timestamp.setNanos((int) input.readVarLong());
+        }
+        return date;
+    }
+
+    protected ClassLoader getClassLoader() {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : getClass().getClassLoader();
+    }
+
+    private void writeElements(final Output output, final Collection<?> elements) {
+        output.writeLength(elements.size());
+        for (final Object element : elements) {
+            writeValue(output, element);
+        }
+    }
+
+    private void writeEntries(final Output output, final Map<?, ?> entries) {
+        output.writeLength(entries.size());
+        for (final Map.Entry<?, ?> entry : entries.entrySet()) {
+            writeValue(output, entry.getKey());
+            writeValue(output, entry.getValue());
+        }
+    }
+
+    private static int capacity(final int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * The serialization output: a growing byte array and the table of the class names already written.
+     */
+    protected static final class Output {
+
+        private byte[] buffer = new byte[256];
+
+        private int position;
+
+        private Map<String, Integer> classNames;
+
+        void writeByte(final int b) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) b;
+        }
+
+        void writeLong(final long value) {
+            ensureCapacity(8);
+            for (int i = 56; i >= 0; i -= 8) {
+                buffer[position++] = (byte) (value >>> i);
+            }
+        }
+
+        void writeVarLong(final long value) {
+            ensureCapacity(10);
+            long v = value;
+            while ((v & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buffer[position++] = (byte) v;
+        }
+
+        void writeLength(final int length) {
+            writeVarLong(length);
+        }
+
+        void writeBytes(final byte[] bytes) {
+            writeLength(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(final String s) {
+            writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // 0 for null, length + 1 otherwise
+        void writeNullableString(final String s) {
+            if (s == null) {
+                writeVarLong(0);
+            } else {
+                final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(bytes.length + 1L);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        // 0 followed by the name for a new class name, index + 1 for a class name already written
+        void writeClassName(final String className) {
+            if (classNames == null) {
+                classNames = new HashMap<>();
+            }
+            final Integer index = classNames.get(className);
+            if (index != null) {
+                writeVarLong(index + 1L);
+            } else {
+                writeVarLong(0);
+                writeString(className);
+                classNames.put(className, classNames.size());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(final int size) {
+            if (position + size > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + size));
+            }
+        }
+    }
+
+    /**
+     * The deserialization input: the byte array, the current position and the table of the class names already read.
+     */
+    protected static final class Input {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        private List<String> classNames;
+
+        Input(final byte[] buffer, final int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new TechnicalException("Malformed variable-length integer in binary serialization");
+        }
+
+        int readLength() {
+            final long length = readVarLong();
+            if (length < 0 || length > buffer.length - position) {
+                throw new TechnicalException("Invalid length in binary serialization: " + length);
+            }
+            return (int) length;
+        }
+
+        byte[] readBytes() {
+            final int length = readLength();
+            final byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            final int length = readLength();
+            final String s = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return s;
+        }
+
+        String readNullableString() {
+            final long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            if (length - 1 > buffer.length - position) {
+                throw new TechnicalException("Invalid length in binary serialization: " + length);
+            }
+            final String s = new String(buffer, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return s;
+        }
+
+        String readClassName() {
+            if (classNames == null) {
+                classNames = new ArrayList<>();
+            }
+            final long index = readVarLong();
+            if (index == 0) {
+                final String className = readString();
+                classNames.add(className);
+                return className;
+            }
+            if (index > classNames.size()) {
+                throw new TechnicalException("Unknown class name reference in binary serialization: " + index);
+            }
+            return classNames.get((int) index - 1);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.pac4j.play.store;
+
+/**
+ * A compression codec for the session cookie generation in {@link PlayCookieSessionStore}.
+ *
+ * The compressed data must start with the one-byte identifier of the codec, so that the right codec can be found
+ * to uncompress the data, whatever the codec currently configured.
+ *
+ * @since 13.0.4
+ */
+public interface CompressionCodec {
+
+    /**
+     * The identifier of the codec, which is the first byte of the compressed data.
+     *
+     * @return the identifier
+     */
+    byte getId();
+
+    /**
+     * Compress the data.
+     *
+     * @param rawBytes the raw bytes
+     * @return compressed bytes, starting with the identifier of the codec (or <code>null</code> if the compression fails)
+     */
+    byte[] compress(byte[] rawBytes);
+
+    /**
+     * Uncompress the data.
+     *
+     * @param compressedBytes the compressed bytes, starting with the identifier of the codec
+     * @return uncompressed bytes (or <code>null</code> if the uncompression fails)
+     */
+    byte[] uncompress(byte[] compressedBytes);
+}
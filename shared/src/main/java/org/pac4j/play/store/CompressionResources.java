@@ -0,0 +1,159 @@
+package org.pac4j.play.store;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pools of {@link Deflater} / {@link Inflater} instances (raw DEFLATE format) along with their scratch buffers,
+ * shared by the compression codecs to avoid allocating native resources and buffers on each call.
+ *
+ * A pooled resource is used by one thread at a time and reset before being released. When the pool is full,
+ * the released resource is ended immediately instead of waiting for its cleaner.
+ *
+ * @since 13.0.4
+ */
+final class CompressionResources {
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    // larger buffers are not kept in the pools
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
+    private static final Queue<Compressor> compressors = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final Queue<Decompressor> decompressors = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private CompressionResources() {}
+
+    static Compressor acquireCompressor() {
+        final Compressor compressor = compressors.poll();
+        return compressor != null ? compressor : new Compressor();
+    }
+
+    static void release(final Compressor compressor) {
+        compressor.reset();
+        if (!compressors.offer(compressor)) {
+            compressor.deflater.end();
+        }
+    }
+
+    static Decompressor acquireDecompressor() {
+        final Decompressor decompressor = decompressors.poll();
+        return decompressor != null ? decompressor : new Decompressor();
+    }
+
+    static void release(final Decompressor decompressor) {
+        decompressor.reset();
+        if (!decompressors.offer(decompressor)) {
+            decompressor.inflater.end();
+        }
+    }
+
+    private static byte[] grow(final byte[] buffer, final int capacity) {
+        if (buffer.length >= capacity) {
+            return buffer;
+        }
+        return Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+    }
+
+    /**
+     * A deflater with its output buffer.
+     */
+    static final class Compressor {
+
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+
+        final CRC32 crc = new CRC32();
+
+        byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+        /**
+         * Deflate the input into the buffer.
+         *
+         * @param input the input
+         * @param dictionary the preset dictionary (optional)
+         * @param offset the position in the buffer where to start writing
+         * @return the position in the buffer after the deflated data
+         */
+        int deflate(final byte[] input, final byte[] dictionary, final int offset) {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input);
+            deflater.finish();
+            int position = offset;
+            while (!deflater.finished()) {
+                buffer = grow(buffer, position + 256);
+                position += deflater.deflate(buffer, position, buffer.length - position);
+            }
+            return position;
+        }
+
+        void ensureCapacity(final int capacity) {
+            buffer = grow(buffer, capacity);
+        }
+
+        private void reset() {
+            deflater.reset();
+            crc.reset();
+            if (buffer.length > MAX_BUFFER_SIZE) {
+                buffer = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+    }
+
+    /**
+     * An inflater with its output buffer.
+     */
+    static final class Decompressor {
+
+        final Inflater inflater = new Inflater(true);
+
+        final CRC32 crc = new CRC32();
+
+        byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+        /**
+         * Inflate the input into the buffer.
+         *
+         * @param input the input
+         * @param offset the offset of the deflated data in the input
+         * @param length the length of the deflated data in the input
+         * @param dictionary the preset dictionary (optional)
+         * @return the length of the inflated data in the buffer
+         * @throws DataFormatException if the data is invalid or truncated
+         */
+        int inflate(final byte[] input, final int offset, final int length, final byte[] dictionary) throws DataFormatException {
+            if (dictionary != null) {
+                // in raw mode, the dictionary is set upfront
+                inflater.setDictionary(dictionary);
+            }
+            inflater.setInput(input, offset, length);
+            int position = 0;
+            while (!inflater.finished()) {
+                buffer = grow(buffer, position + 256);
+                final int len = inflater.inflate(buffer, position, buffer.length - position);
+                if (len == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated data");
+                }
+                position += len;
+            }
+            return position;
+        }
+
+        private void reset() {
+            inflater.reset();
+            crc.reset();
+            if (buffer.length > MAX_BUFFER_SIZE) {
+                buffer = new byte[INITIAL_BUFFER_SIZE];
+            }
+        }
+    }
+}
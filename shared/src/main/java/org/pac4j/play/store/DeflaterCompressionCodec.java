@@ -0,0 +1,96 @@
+package org.pac4j.play.store;
+
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+
+/**
+ * A codec using the raw DEFLATE format (no GZIP/ZLIB header and trailer) with a preset dictionary.
+ *
+ * The default dictionary holds the strings commonly found in the JSON serialization of the pac4j session values
+ * (profiles, requested URL, CSRF token...), so even small sessions get a good compression ratio.
+ *
+ * As the dictionary is required to uncompress the existing session cookies, each dictionary has its own codec
+ * identifier: a custom dictionary must be defined with a custom identifier (from {@link #MIN_CUSTOM_ID} to 127),
+ * the same on all the nodes. To change the dictionary, a new identifier is used and the codec of the previous
+ * dictionary is kept to read the existing cookies (see {@link PlayCookieSessionStore#setPreviousCompressionCodecs}).
+ *
+ * The deflaters/inflaters and their buffers are reused across calls (see {@link CompressionResources}).
+ *
+ * @since 13.0.4
+ */
+public class DeflaterCompressionCodec implements CompressionCodec {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeflaterCompressionCodec.class);
+
+    // the identifier of the codec with the default dictionary: a new default dictionary gets a new built-in identifier
+    public static final byte ID = 1;
+
+    // the identifiers below are reserved for the built-in codecs
+    public static final byte MIN_CUSTOM_ID = 0x20;
+
+    // the most frequent strings are at the end of the dictionary, as they are closer to the data
+    private static final String DEFAULT_DICTIONARY = "\"org.pac4j.saml.profile.SAML2Profile\",\"org.pac4j.cas.profile.CasProfile\","
+        + "\"org.pac4j.jwt.profile.JwtProfile\",\"org.pac4j.oauth.profile.\",\"org.pac4j.http.profile.\","
+        + "\"org.pac4j.oidc.profile.OidcProfile\",\"idToken\",\"accessToken\",\"refreshToken\",\"expiration\","
+        + "\"nonce\",\"iss\",\"sub\",\"aud\",\"exp\",\"iat\",\"auth_time\",\"sessionIndex\",\"samlNameIdFormat\","
+        + "\"samlNameIdNameQualifier\",\"samlNameIdSpNameQualifier\",\"authnContextClassRefs\",\"issuerId\","
+        + "\"notBefore\",\"notOnOrAfter\",\"first_name\",\"family_name\",\"given_name\",\"display_name\","
+        + "\"preferred_username\",\"username\",\"locale\",\"gender\",\"location\",\"picture_url\",\"profile_url\","
+        + "\"email\",[\"java.util.Date\",[\"java.util.ArrayList\",[\"java.util.LinkedHashSet\",[\"java.util.HashMap\","
+        + "\"pac4jCsrfTokenExpirationDate\":\"pac4jPreviousCsrfToken\":\"pac4jCsrfToken\":\"pac4jRequestedUrl\":"
+        + "\"http://\"https://\"org.pac4j.core.profile.CommonProfile\",\"authenticationAttributes\":{},\"attributes\":{"
+        + "\"roles\":[\"java.util.HashSet\",[]],\"clientName\":\"linkedId\":null,\"remembered\":false,\"isExpired\":false,"
+        + "\"id\":\"pac4jUserProfiles\":{\"@class\":\"java.util.LinkedHashMap\",\"@class\":\"org.pac4j.core.profile.";
+
+    private final byte id;
+
+    private final byte[] dictionary;
+
+    public DeflaterCompressionCodec() {
+        this.id = ID;
+        this.dictionary = DEFAULT_DICTIONARY.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public DeflaterCompressionCodec(final byte id, final byte[] dictionary) {
+        CommonHelper.assertTrue(id >= MIN_CUSTOM_ID, "the identifier of a custom dictionary must be at least " + MIN_CUSTOM_ID);
+        CommonHelper.assertNotNull("dictionary", dictionary);
+        this.id = id;
+        this.dictionary = dictionary.clone();
+    }
+
+    @Override
+    public byte getId() {
+        return id;
+    }
+
+    @Override
+    public byte[] compress(final byte[] rawBytes) {
+        final CompressionResources.Compressor compressor = CompressionResources.acquireCompressor();
+        try {
+            compressor.buffer[0] = id;
+            final int length = compressor.deflate(rawBytes, dictionary, 1);
+            return Arrays.copyOf(compressor.buffer, length);
+        } finally {
+            CompressionResources.release(compressor);
+        }
+    }
+
+    @Override
+    public byte[] uncompress(final byte[] compressedBytes) {
+        final CompressionResources.Decompressor decompressor = CompressionResources.acquireDecompressor();
+        try {
+            final int length = decompressor.inflate(compressedBytes, 1, compressedBytes.length - 1, dictionary);
+            return Arrays.copyOf(decompressor.buffer, length);
+        } catch (final DataFormatException e) {
+            LOGGER.error("Unable to uncompress session cookie", e);
+            return null;
+        } finally {
+            CompressionResources.release(decompressor);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.pac4j.play.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * The GZIP codec. Its identifier is the first byte of the GZIP magic number, so the compressed data is exactly
+ * the GZIP format used before the codecs were introduced: old session cookies can still be read and session
+ * cookies created with this codec can be read by older versions.
+ *
+ * The GZIP header and trailer are handled directly around a raw deflater/inflater, which are reused across calls
+ * with their buffers (see {@link CompressionResources}).
+ *
+ * @since 13.0.4
+ */
+public final class GzipCompressionCodec implements CompressionCodec {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GzipCompressionCodec.class);
+
+    public static final byte ID = (byte) 0x1f;
+
+    public static final GzipCompressionCodec INSTANCE = new GzipCompressionCodec();
+
+    // magic number, DEFLATE method, no flag, no modification time, no extra flag, unknown OS: same as GZIPOutputStream
+    private static final byte[] HEADER = { ID, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private static final int TRAILER_LENGTH = 8;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(final byte[] rawBytes) {
+        final CompressionResources.Compressor compressor = CompressionResources.acquireCompressor();
+        try {
+            System.arraycopy(HEADER, 0, compressor.buffer, 0, HEADER.length);
+            final int position = compressor.deflate(rawBytes, null, HEADER.length);
+            compressor.ensureCapacity(position + TRAILER_LENGTH);
+            compressor.crc.update(rawBytes);
+            writeInt(compressor.buffer, position, (int) compressor.crc.getValue());
+            writeInt(compressor.buffer, position + 4, rawBytes.length);
+            return Arrays.copyOf(compressor.buffer, position + TRAILER_LENGTH);
+        } finally {
+            CompressionResources.release(compressor);
+        }
+    }
+
+    @Override
+    public byte[] uncompress(final byte[] compressedBytes) {
+        // optional header fields are not written by this codec nor by GZIPOutputStream: use the standard stream for them
+        if (compressedBytes.length < HEADER.length + TRAILER_LENGTH || compressedBytes[1] != HEADER[1]
+            || compressedBytes[2] != HEADER[2] || compressedBytes[3] != 0) {
+            return uncompressWithStream(compressedBytes);
+        }
+        final CompressionResources.Decompressor decompressor = CompressionResources.acquireDecompressor();
+        try {
+            final int length = decompressor.inflate(compressedBytes, HEADER.length, compressedBytes.length - HEADER.length, null);
+            final int trailer = compressedBytes.length - decompressor.inflater.getRemaining();
+            if (compressedBytes.length - trailer < TRAILER_LENGTH) {
+                throw new DataFormatException("Missing GZIP trailer");
+            }
+            decompressor.crc.update(decompressor.buffer, 0, length);
+            if (readInt(compressedBytes, trailer) != (int) decompressor.crc.getValue()
+                || readInt(compressedBytes, trailer + 4) != length) {
+                throw new DataFormatException("Corrupt GZIP trailer");
+            }
+            return Arrays.copyOf(decompressor.buffer, length);
+        } catch (final DataFormatException e) {
+            LOGGER.error("Unable to uncompress session cookie", e);
+            return null;
+        } finally {
+            CompressionResources.release(decompressor);
+        }
+    }
+
+    private byte[] uncompressWithStream(final byte[] compressedBytes) {
+        final ByteArrayOutputStream resultBao = new ByteArrayOutputStream();
+        try (GZIPInputStream zipInputStream = new GZIPInputStream(new ByteArrayInputStream(compressedBytes))) {
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = zipInputStream.read(buffer)) > 0) {
+                resultBao.write(buffer, 0, len);
+            }
+            return resultBao.toByteArray();
+        } catch (IOException e) {
+            LOGGER.error("Unable to uncompress session cookie", e);
+            return null;
+        }
+    }
+
+    private static void writeInt(final byte[] buffer, final int offset, final int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+
+    private static int readInt(final byte[] buffer, final int offset) {
+        return (buffer[offset] & 0xFF) | (buffer[offset + 1] & 0xFF) << 8
+            | (buffer[offset + 2] & 0xFF) << 16 | (buffer[offset + 3] & 0xFF) << 24;
+    }
+}
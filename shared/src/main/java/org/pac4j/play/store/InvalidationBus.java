@@ -0,0 +1,41 @@
+package org.pac4j.play.store;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * A channel to propagate the invalidations of cache keys across the nodes of a cluster, so that the entries
+ * of the {@link NearCache} of each node can be evicted when a session is updated, destroyed or renewed on another node.
+ *
+ * @since 13.0.4
+ */
+public interface InvalidationBus {
+
+    /**
+     * Get the form of a key on the bus: the keys are published and received in this form,
+     * which is also the key of the near cache entries.
+     *
+     * A bus sending the keys over the network should return a keyed hash, so that the keys (like the session identifiers)
+     * are never disclosed.
+     *
+     * @param key the cache key
+     * @return the key on the bus
+     */
+    default String hashKey(final String key) {
+        return key;
+    }
+
+    /**
+     * Publish invalidated keys to the other nodes (and possibly to the current node).
+     *
+     * @param keys the invalidated keys (see {@link #hashKey(String)})
+     */
+    void publish(Collection<String> keys);
+
+    /**
+     * Register a listener for the keys invalidated by the other nodes (see {@link #hashKey(String)}).
+     *
+     * @param listener the listener
+     */
+    void subscribe(Consumer<Collection<String>> listener);
+}
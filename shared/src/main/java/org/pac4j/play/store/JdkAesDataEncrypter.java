@@ -4,32 +4,47 @@ import org.pac4j.core.util.CommonHelper;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
 
 /**
  * A DataEncrypter based on Java standard library AES encryption (no Shiro dependency).
  *
+ * The initialized ciphers are kept in bounded pools (one for encryption, one for decryption) and reused across calls,
+ * as the cipher lookup is expensive. A cipher is only used by one thread at a time, so this is safe whatever the
+ * threading model (dispatchers or virtual threads).
+ *
  * @author Rahul Malawadkar
  */
 public final class JdkAesDataEncrypter implements DataEncrypter {
 
     private static final SecureRandom random = new SecureRandom();
 
-    private final byte[] key;
+    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final SecretKeySpec secretKey;
+
+    private final Queue<Cipher> encryptCiphers = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final Queue<Cipher> decryptCiphers = new ArrayBlockingQueue<>(POOL_SIZE);
 
     public JdkAesDataEncrypter(final byte[] key) {
         CommonHelper.assertNotNull("key", key);
         if (key.length != 16) {
             throw new IllegalArgumentException("AES key must be 16 bytes");
         }
-        this.key = key.clone();
+        this.secretKey = new SecretKeySpec(key.clone(), "AES");
     }
 
     public JdkAesDataEncrypter() {
         // Generate random 16-byte AES key
         byte[] bytes = new byte[16];
         random.nextBytes(bytes);
-        this.key = bytes;
+        this.secretKey = new SecretKeySpec(bytes, "AES");
     }
 
     @Override
@@ -38,10 +53,7 @@ public final class JdkAesDataEncrypter implements DataEncrypter {
             return null;
         }
         try {
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            SecretKeySpec secretKey = new SecretKeySpec(key, "AES");
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            return cipher.doFinal(encryptedBytes);
+            return doFinal(decryptCiphers, Cipher.DECRYPT_MODE, encryptedBytes);
         } catch (Exception e) {
             throw new RuntimeException("AES decryption error", e);
         }
@@ -53,12 +65,22 @@ public final class JdkAesDataEncrypter implements DataEncrypter {
             return null;
         }
         try {
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            SecretKeySpec secretKey = new SecretKeySpec(key, "AES");
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            return cipher.doFinal(rawBytes);
+            return doFinal(encryptCiphers, Cipher.ENCRYPT_MODE, rawBytes);
         } catch (Exception e) {
             throw new RuntimeException("AES encryption error", e);
         }
     }
+
+    private byte[] doFinal(final Queue<Cipher> pool, final int mode, final byte[] input) throws GeneralSecurityException {
+        Cipher cipher = pool.poll();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, secretKey);
+        }
+        // doFinal resets the cipher to its initialized state, so it can be reused as is
+        final byte[] output = cipher.doFinal(input);
+        // if the pool is full, the cipher is simply dropped
+        pool.offer(cipher);
+        return output;
+    }
 }
@@ -0,0 +1,34 @@
+package org.pac4j.play.store;
+
+import lombok.ToString;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An in-JVM invalidation bus: the invalidated keys are immediately sent to all the listeners.
+ * It can be shared by several stores to simulate a cluster in tests.
+ *
+ * @since 13.0.4
+ */
+@ToString
+public class LoopbackInvalidationBus implements InvalidationBus {
+
+    private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(final Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            for (final Consumer<Collection<String>> listener : listeners) {
+                listener.accept(keys);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(final Consumer<Collection<String>> listener) {
+        listeners.add(listener);
+    }
+}
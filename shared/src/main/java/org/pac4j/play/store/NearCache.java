@@ -0,0 +1,216 @@
+package org.pac4j.play.store;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded in-process cache with a time to live, to put in front of a remote cache ({@link PlayCacheStore#setNearCache}).
+ *
+ * The entries are kept in a {@link ConcurrentHashMap}, so reading a value only records its last access time, without any lock.
+ * When the maximum size is exceeded, a single thread evicts the expired entries, then the least recently used ones,
+ * down to 90% of the maximum size, so the eviction cost is amortized over the following insertions.
+ * As the remote cache remains the source of truth, the time to live should be short: the local writes invalidate the entries,
+ * but not the writes performed by other nodes.
+ *
+ * An invalidated key is kept as a tombstone with an invalidation stamp, so that a value read from the remote cache
+ * before the invalidation is not put back afterwards: the reader takes a {@link #stamp()} before reading the remote cache
+ * and puts the value with {@link #put(String, Object, long)}.
+ *
+ * @since 13.0.4
+ */
+@ToString(of = {"maxSize", "timeToLive"})
+public class NearCache<V> {
+
+    @Getter
+    private final int maxSize;
+
+    @Getter
+    private final Duration timeToLive;
+
+    private final long timeToLiveNanos;
+
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // the stamp of the last invalidation of all the keys
+    private volatile long clearStamp;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public NearCache() {
+        this(10_000, Duration.ofSeconds(5));
+    }
+
+    public NearCache(final int maxSize, final Duration timeToLive) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than zero");
+        }
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLive;
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * Get a value.
+     *
+     * @param key the key
+     * @return the value (or <code>null</code> if it is missing or expired)
+     */
+    public V get(final String key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry != null && entry.value != null) {
+            final long now = System.nanoTime();
+            if (now - entry.created < timeToLiveNanos) {
+                entry.lastAccess = now;
+                hits.increment();
+                return entry.value;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(final String key, final V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime(), 0));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Get the current invalidation stamp, to take before reading the remote cache.
+     *
+     * @return the invalidation stamp
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Put a value read from the remote cache, unless the key has been invalidated since the stamp was taken.
+     *
+     * @param key the key
+     * @param value the value
+     * @param stamp the invalidation stamp taken before reading the remote cache
+     * @return whether the value has been put
+     */
+    public boolean put(final String key, final V value, final long stamp) {
+        if (stamp < clearStamp) {
+            return false;
+        }
+        final Entry<V> entry = new Entry<>(value, System.nanoTime(), 0);
+        final Entry<V> current = entries.compute(key, (k, existing) ->
+            existing != null && existing.value == null && existing.invalidation > stamp ? existing : entry);
+        if (current != entry) {
+            return false;
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+        return true;
+    }
+
+    public void invalidate(final String key) {
+        entries.put(key, new Entry<>(null, System.nanoTime(), invalidations.incrementAndGet()));
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    public void invalidateAll() {
+        clearStamp = invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Get the number of values (the tombstones of the invalidated keys are not counted).
+     *
+     * @return the number of values
+     */
+    public int size() {
+        int size = 0;
+        for (final Entry<V> entry : entries.values()) {
+            if (entry.value != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // the concurrent insertions do not wait for the eviction: the size may temporarily exceed the maximum
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final long now = System.nanoTime();
+            entries.entrySet().removeIf(e -> now - e.getValue().created >= timeToLiveNanos);
+            final int target = maxSize - maxSize / 10;
+            final int excess = entries.size() - target;
+            if (excess > 0) {
+                // the access times are read once, as they change during the sort
+                final List<Candidate<V>> candidates = new ArrayList<>(entries.size());
+                entries.forEach((key, entry) -> candidates.add(new Candidate<>(key, entry, entry.lastAccess)));
+                candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+                for (int i = 0; i < excess && i < candidates.size(); i++) {
+                    final Candidate<V> candidate = candidates.get(i);
+                    if (entries.remove(candidate.key(), candidate.entry())) {
+                        evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final long created;
+
+        // the invalidation stamp of a tombstone (no value)
+        private final long invalidation;
+
+        private volatile long lastAccess;
+
+        private Entry(final V value, final long created, final long invalidation) {
+            this.value = value;
+            this.created = created;
+            this.invalidation = invalidation;
+            this.lastAccess = created;
+        }
+    }
+
+    private record Candidate<V>(String key, Entry<V> entry, long lastAccess) {}
+}
@@ -0,0 +1,33 @@
+package org.pac4j.play.store;
+
+import java.util.Arrays;
+
+/**
+ * A codec which does not compress the data, only prefixed by its identifier.
+ *
+ * @since 13.0.4
+ */
+public final class NoCompressionCodec implements CompressionCodec {
+
+    public static final byte ID = 0;
+
+    public static final NoCompressionCodec INSTANCE = new NoCompressionCodec();
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] compress(final byte[] rawBytes) {
+        final byte[] result = new byte[rawBytes.length + 1];
+        result[0] = ID;
+        System.arraycopy(rawBytes, 0, result, 1, rawBytes.length);
+        return result;
+    }
+
+    @Override
+    public byte[] uncompress(final byte[] compressedBytes) {
+        return Arrays.copyOfRange(compressedBytes, 1, compressedBytes.length);
+    }
+}
@@ -0,0 +1,39 @@
+package org.pac4j.play.store;
+
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The asynchronous writes started by the session stores during a request: the result of the request
+ * must only be sent once they are completed, so that the next request reads the new values.
+ *
+ * The failures are expected to be handled (logged) by the session stores: they do not fail the request.
+ *
+ * @since 13.0.4
+ */
+@ToString
+public class PendingWrites {
+
+    private final List<CompletableFuture<?>> writes = new ArrayList<>();
+
+    public synchronized void add(final CompletionStage<?> write) {
+        writes.add(write.toCompletableFuture());
+    }
+
+    /**
+     * Wait for the writes started so far.
+     *
+     * @return the completion of the writes
+     */
+    public synchronized CompletionStage<Void> await() {
+        writes.removeIf(write -> write.isDone());
+        if (writes.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).handle((v, e) -> null);
+    }
+}
@@ -0,0 +1,94 @@
+package org.pac4j.play.store;
+
+import lombok.ToString;
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.play.PlayWebContext;
+import org.pac4j.play.context.PlayFrameworkParameters;
+import play.cache.AsyncCacheApi;
+import play.mvc.Http;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link PlayCacheSessionStore} using the asynchronous Play Cache (write back mode enabled by default).
+ *
+ * The session values can be loaded asynchronously before the web context is created (see {@link #preload}),
+ * so that no thread is blocked while reading the cache. Otherwise, they are loaded synchronously on first access.
+ *
+ * The session values are written and removed asynchronously: the writes are registered in the {@link PendingWrites}
+ * of the web context and the result of the request is only sent once they are completed.
+ *
+ * The expiration of the sessions and of their profile index entries is refreshed asynchronously. But with the profile
+ * index enabled, adding a session to the index or removing it (on login, logout and session renewal) and
+ * {@link #revokeAllForProfile(String)} still read and write the cache synchronously.
+ *
+ * @since 13.0.4
+ */
+@Singleton
+@ToString(callSuper = true)
+public class PlayAsyncCacheSessionStore extends PlayCacheSessionStore {
+
+    protected PlayAsyncCacheStore<String, Map<String, Object>> asyncStore;
+
+    @Inject
+    public PlayAsyncCacheSessionStore(final AsyncCacheApi cache) {
+        this.asyncStore = new PlayAsyncCacheStore<>(cache);
+        this.store = this.asyncStore;
+        setDefaultTimeout();
+        setWriteBack(true);
+    }
+
+    /**
+     * Load asynchronously the session values of the request: they are available to the web contexts created
+     * from these parameters.
+     *
+     * @param parameters the framework parameters
+     * @return the completion of the loading
+     */
+    public CompletionStage<Void> preload(final PlayFrameworkParameters parameters) {
+        final Http.RequestHeader request = parameters.getJavaRequest() != null
+            ? parameters.getJavaRequest() : parameters.getScalaRequest().asJava();
+        final String sessionId = request.session().get(Pac4jConstants.SESSION_ID).orElse(null);
+        if (sessionId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final String prefixedSessionKey = getPrefixedSessionKey(sessionId);
+        LOGGER.debug("Preload session values: {}", prefixedSessionKey);
+        return asyncStore.getAsync(prefixedSessionKey).thenAccept(values -> {
+            if (isSlidingExpiration()) {
+                values.ifPresent(v -> touchSession(prefixedSessionKey, v));
+            }
+            parameters.getRequestSessionValues().put(REQUEST_VALUES_KEY,
+                new RequestSessionValues(prefixedSessionKey, values.map(this::copySessionValues).orElse(null),
+                    this::writeSessionValues));
+        });
+    }
+
+    @Override
+    protected PlayCacheStore<String, Map<String, Object>> newIndexStore() {
+        return new PlayAsyncCacheStore<>(asyncStore.getAsyncCache());
+    }
+
+    @Override
+    protected void writeToStore(final WebContext context, final String prefixedSessionKey, final Map<String, Object> values) {
+        ((PlayWebContext) context).getPendingWrites().add(asyncStore.setAsync(prefixedSessionKey, values).whenComplete((done, e) -> {
+            if (e != null) {
+                LOGGER.error("Unable to write session values: {}", prefixedSessionKey, e);
+            }
+        }));
+    }
+
+    @Override
+    protected void removeFromStore(final WebContext context, final String prefixedSessionKey) {
+        ((PlayWebContext) context).getPendingWrites().add(asyncStore.removeAsync(prefixedSessionKey).whenComplete((done, e) -> {
+            if (e != null) {
+                LOGGER.error("Unable to remove session values: {}", prefixedSessionKey, e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,97 @@
+package org.pac4j.play.store;
+
+import lombok.ToString;
+import org.apache.pekko.Done;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import play.cache.AsyncCacheApi;
+
+import javax.inject.Inject;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Store using the asynchronous Play Cache.
+ *
+ * In addition to the synchronous store methods, the values can be read and written asynchronously.
+ * The synchronous {@link #set(Object, Object)} and {@link #remove(Object)} methods wait for the cache, so that
+ * the value is up to date when they return.
+ *
+ * @since 13.0.4
+ */
+@ToString
+public class PlayAsyncCacheStore<K, O> extends PlayCacheStore<K, O> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlayAsyncCacheStore.class);
+
+    private final AsyncCacheApi asyncCache;
+
+    @Inject
+    public PlayAsyncCacheStore(final AsyncCacheApi asyncCacheApi) {
+        super(asyncCacheApi.sync());
+        this.asyncCache = asyncCacheApi;
+    }
+
+    public CompletionStage<Optional<O>> getAsync(final K key) {
+        init();
+        final String computedKey = computeKey(key);
+        final NearCache<O> nearCache = getNearCache();
+        if (nearCache == null) {
+            return asyncCache.get(computedKey);
+        }
+        final String nearCacheKey = computeNearCacheKey(computedKey);
+        final O value = nearCache.get(nearCacheKey);
+        if (value != null) {
+            return CompletableFuture.completedFuture(Optional.of(value));
+        }
+        // the value is not cached if the key is invalidated meanwhile
+        final long stamp = nearCache.stamp();
+        return asyncCache.<O>get(computedKey).thenApply(optValue -> {
+            optValue.ifPresent(v -> nearCache.put(nearCacheKey, v, stamp));
+            return optValue;
+        });
+    }
+
+    public CompletionStage<Done> setAsync(final K key, final O value) {
+        if (value == null) {
+            return removeAsync(key);
+        }
+        init();
+        final String computedKey = computeKey(key);
+        markTouched(computedKey);
+        return asyncCache.set(computedKey, value, getTimeout()).whenComplete((done, e) -> invalidateNearCache(key));
+    }
+
+    public CompletionStage<Done> removeAsync(final K key) {
+        init();
+        return asyncCache.remove(computeKey(key)).whenComplete((done, e) -> invalidateNearCache(key));
+    }
+
+    @Override
+    protected void internalSet(final K key, final O value) {
+        setAsync(key, value).toCompletableFuture().join();
+    }
+
+    @Override
+    protected void internalRemove(final K key) {
+        removeAsync(key).toCompletableFuture().join();
+    }
+
+    @Override
+    protected void refreshExpiration(final String computedKey) {
+        asyncCache.<O>get(computedKey)
+            .thenCompose(value -> value.isPresent()
+                ? asyncCache.set(computedKey, value.get(), getTimeout())
+                : CompletableFuture.completedFuture(Done.getInstance()))
+            .whenComplete((done, e) -> {
+                if (e != null) {
+                    LOGGER.error("Unable to refresh expiration for key: {}", computedKey, e);
+                }
+            });
+    }
+
+    public AsyncCacheApi getAsyncCache() {
+        return asyncCache;
+    }
+}
@@ -6,7 +6,9 @@ import lombok.Setter;
 import lombok.ToString;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.core.profile.UserProfile;
 import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.core.util.serializer.Serializer;
 import org.pac4j.play.PlayWebContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,9 +17,13 @@ import play.mvc.Http;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * This session store internally uses the {@link PlayCacheStore} which uses the Play Cache, only an identifier is saved into the Play session.
@@ -31,14 +37,45 @@ public class PlayCacheSessionStore implements SessionStore {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(PlayCacheSessionStore.class);
 
+    // key of the session values loaded for the request in the web context
+    protected static final String REQUEST_VALUES_KEY = "pac4jCacheSessionValues";
+
+    // prefix of the keys of the profile index entries
+    protected static final String PROFILE_INDEX_PREFIX = "pac4jProfileSessions:";
+
+    // key of the profile identifiers under which the session is indexed, in the session values
+    protected static final String INDEXED_PROFILE_IDS_KEY = "pac4jIndexedProfileIds";
+
     @Getter
     @Setter
     // prefix for the cache
     private String prefix = null;
 
+    @Getter
+    @Setter
+    // write the session values in the cache only once, when the request or the response is supplemented
+    private boolean writeBack = false;
+
+    @Getter
+    @Setter
+    // refresh the expiration of the session when it is read (throttled by the store)
+    private boolean slidingExpiration = false;
+
+    @Getter
+    @Setter
+    // maintain an index of the session identifiers by profile identifier (see revokeAllForProfile)
+    private boolean profileIndex = false;
+
+    @Getter
+    @Setter
+    private SessionIdGenerator sessionIdGenerator = new SecureRandomSessionIdGenerator();
+
     // store
     protected PlayCacheStore<String, Map<String, Object>> store;
 
+    // store of the profile index entries
+    private volatile PlayCacheStore<String, Map<String, Object>> indexStore;
+
     protected PlayCacheSessionStore() {}
 
     @Inject
@@ -66,11 +103,13 @@ public class PlayCacheSessionStore implements SessionStore {
         String sessionId = getSessionIdFromSessionOrRequest(context);
         if (sessionId == null && createSession) {
             // generate id for session
-            sessionId = java.util.UUID.randomUUID().toString();
+            sessionId = sessionIdGenerator.generate();
             LOGGER.debug("generated sessionId: {}", sessionId);
             // and save it to session/request
             setSessionIdInSession(context, sessionId);
             context.setRequestAttribute(Pac4jConstants.SESSION_ID, sessionId);
+            // a new session has no values: no need to read the store
+            setRequestSessionValues(context, getPrefixedSessionKey(sessionId), null);
         }
         return Optional.ofNullable(sessionId);
     }
@@ -99,10 +138,10 @@ public class PlayCacheSessionStore implements SessionStore {
     public Optional<Object> get(final WebContext context, final String key) {
         final Optional<String> sessionId = getSessionId(context, false);
         if (sessionId.isPresent()) {
-            final Optional<Map<String, Object>> values = store.get(getPrefixedSessionKey(sessionId.get()));
+            final Map<String, Object> values = getSessionValues(context, getPrefixedSessionKey(sessionId.get()));
             Object value = null;
-            if (values != null && values.isPresent()) {
-                value = values.get().get(key);
+            if (values != null) {
+                value = values.get(key);
             }
             if (value instanceof Exception) {
                 LOGGER.debug("Get value: {} for key: {}", value.toString(), key);
@@ -119,25 +158,221 @@ public class PlayCacheSessionStore implements SessionStore {
     @Override
     public void set(final WebContext context, final String key, final Object value) {
         final String sessionId = getSessionId(context, true).get();
-        String prefixedSessionKey = getPrefixedSessionKey(sessionId);
-        Optional<Map<String, Object>> oldValues = store.get(prefixedSessionKey);
-        Map<String, Object> values = new HashMap<>();
-        if (oldValues != null && oldValues.isPresent()) {
-            values = oldValues.get();
+        final String prefixedSessionKey = getPrefixedSessionKey(sessionId);
+        Map<String, Object> values = getSessionValues(context, prefixedSessionKey);
+        if (values == null) {
+            values = new HashMap<>();
+            setRequestSessionValues(context, prefixedSessionKey, values);
         }
         if (value instanceof Exception) {
             LOGGER.debug("Set key: {} with value: {}", key, value.toString());
         } else {
             LOGGER.debug("Set key: {} with value: {}", key, value);
         }
+        final Object oldValue;
         if (value == null) {
-            values.remove(key);
+            if (!values.containsKey(key)) {
+                return;
+            }
+            oldValue = values.remove(key);
+        } else {
+            if (value instanceof String && value.equals(values.get(key))) {
+                return;
+            }
+            oldValue = values.put(key, value);
+        }
+        if (profileIndex && Pac4jConstants.USER_PROFILES.equals(key)) {
+            updateProfileIndex(sessionId, values, oldValue, value);
+        }
+        saveSessionValues(context, prefixedSessionKey, values);
+    }
+
+    /**
+     * Update the profile index for new profiles, by difference with the profile identifiers already indexed for the session
+     * (the profiles may have been updated in place).
+     *
+     * @param sessionId the session identifier
+     * @param values the session values
+     * @param oldProfiles the previous profiles
+     * @param newProfiles the new profiles
+     */
+    protected void updateProfileIndex(final String sessionId, final Map<String, Object> values, final Object oldProfiles,
+                                      final Object newProfiles) {
+        final Set<String> oldIds = getIndexedProfileIds(values, oldProfiles);
+        final Set<String> newIds = getProfileIds(newProfiles);
+        for (final String profileId : newIds) {
+            if (!oldIds.contains(profileId)) {
+                addToProfileIndex(profileId, sessionId);
+            }
+        }
+        for (final String profileId : oldIds) {
+            if (!newIds.contains(profileId)) {
+                removeFromProfileIndex(profileId, sessionId);
+            }
+        }
+        if (newIds.isEmpty()) {
+            values.remove(INDEXED_PROFILE_IDS_KEY);
         } else {
-            values.put(key, value);
+            values.put(INDEXED_PROFILE_IDS_KEY, new ArrayList<>(newIds));
         }
+    }
+
+    // the sessions saved before the identifiers were recorded are indexed under the identifiers of their profiles
+    protected Set<String> getIndexedProfileIds(final Map<String, Object> values, final Object profiles) {
+        if (values.get(INDEXED_PROFILE_IDS_KEY) instanceof Collection<?> ids) {
+            final Set<String> indexedIds = new HashSet<>();
+            for (final Object id : ids) {
+                indexedIds.add(String.valueOf(id));
+            }
+            return indexedIds;
+        }
+        return getProfileIds(profiles);
+    }
+
+    /**
+     * Save the session values: either write them immediately in the store or mark them as dirty in the web context
+     * in write back mode.
+     *
+     * @param context the web context
+     * @param prefixedSessionKey the prefixed session key
+     * @param values the session values
+     */
+    protected void saveSessionValues(final WebContext context, final String prefixedSessionKey, final Map<String, Object> values) {
+        if (writeBack) {
+            final RequestSessionValues cachedValues = ((PlayWebContext) context).getRequestSessionValues(REQUEST_VALUES_KEY);
+            if (cachedValues != null && prefixedSessionKey.equals(cachedValues.getSource())) {
+                cachedValues.setDirty(true);
+                return;
+            }
+        }
+        writeToStore(context, prefixedSessionKey, values);
+        refreshProfileIndex(values);
+    }
+
+    protected void writeSessionValues(final PlayWebContext context, final RequestSessionValues cachedValues) {
+        LOGGER.debug("Write session values: {}", cachedValues.getSource());
+        writeToStore(context, cachedValues.getSource(), cachedValues.getValues());
+        refreshProfileIndex(cachedValues.getValues());
+    }
+
+    /**
+     * Write the session values in the store for the current request.
+     *
+     * @param context the web context
+     * @param prefixedSessionKey the prefixed session key
+     * @param values the session values
+     */
+    protected void writeToStore(final WebContext context, final String prefixedSessionKey, final Map<String, Object> values) {
         store.set(prefixedSessionKey, values);
     }
 
+    /**
+     * Remove the session values from the store for the current request.
+     *
+     * @param context the web context
+     * @param prefixedSessionKey the prefixed session key
+     */
+    protected void removeFromStore(final WebContext context, final String prefixedSessionKey) {
+        store.remove(prefixedSessionKey);
+    }
+
+    /**
+     * Get the session values from the store, only once per request: they are then kept in the web context.
+     *
+     * @param context the web context
+     * @param prefixedSessionKey the prefixed session key
+     * @return the session values (or <code>null</code> if they don't exist)
+     */
+    protected Map<String, Object> getSessionValues(final WebContext context, final String prefixedSessionKey) {
+        final RequestSessionValues cachedValues = ((PlayWebContext) context).getRequestSessionValues(REQUEST_VALUES_KEY);
+        if (cachedValues != null && prefixedSessionKey.equals(cachedValues.getSource())) {
+            return cachedValues.getValues();
+        }
+        final Optional<Map<String, Object>> optValues = store.get(prefixedSessionKey);
+        if (slidingExpiration && optValues != null && optValues.isPresent()) {
+            touchSession(prefixedSessionKey, optValues.get());
+        }
+        final Map<String, Object> values = optValues != null && optValues.isPresent() ? copySessionValues(optValues.get()) : null;
+        setRequestSessionValues(context, prefixedSessionKey, values);
+        return values;
+    }
+
+    /**
+     * Refresh the expiration of the session (sliding expiration) and of its profile index entries,
+     * so that a session kept alive can still be revoked.
+     *
+     * @param prefixedSessionKey the prefixed session key
+     * @param values the session values
+     */
+    protected void touchSession(final String prefixedSessionKey, final Map<String, Object> values) {
+        store.touch(prefixedSessionKey, values);
+        refreshProfileIndex(values);
+    }
+
+    /**
+     * Refresh the expiration of the profile index entries of a session which is written or touched.
+     *
+     * As the refresh is throttled, the index entries expire later than the sessions (see {@link #getIndexStore()}).
+     *
+     * @param values the session values
+     */
+    protected void refreshProfileIndex(final Map<String, Object> values) {
+        if (profileIndex && values != null) {
+            final PlayCacheStore<String, Map<String, Object>> indexStore = getIndexStore();
+            for (final String profileId : getIndexedProfileIds(values, values.get(Pac4jConstants.USER_PROFILES))) {
+                indexStore.touch(getPrefixedSessionKey(PROFILE_INDEX_PREFIX + profileId));
+            }
+        }
+    }
+
+    /**
+     * Get the store of the profile index entries: the same Play cache, but without near cache (the index entries
+     * must be up to date) and with a longer timeout, so that an index entry refreshed at most once per touch interval
+     * does not expire before its sessions.
+     *
+     * @return the store of the profile index entries
+     */
+    protected PlayCacheStore<String, Map<String, Object>> getIndexStore() {
+        PlayCacheStore<String, Map<String, Object>> current = indexStore;
+        if (current == null) {
+            current = newIndexStore();
+            indexStore = current;
+        }
+        final int timeout = getTimeout();
+        final int indexTimeout = timeout > 0 ? (int) Math.ceil(timeout / (1 - Math.min(current.getTouchRatio(), 0.9))) : 0;
+        if (current.getTimeout() != indexTimeout) {
+            current.setTimeout(indexTimeout);
+        }
+        return current;
+    }
+
+    protected PlayCacheStore<String, Map<String, Object>> newIndexStore() {
+        return new PlayCacheStore<>(store.getCache());
+    }
+
+    /**
+     * Copy the session values read from the store, as they may be shared by the cache with other requests.
+     *
+     * With a near cache, the same instances are returned to the concurrent requests of a session: the values
+     * (like the profiles) are deep copied so that an in-place update does not affect the other requests.
+     *
+     * @param values the session values from the store
+     * @return the copy for the current request
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<String, Object> copySessionValues(final Map<String, Object> values) {
+        if (store.getNearCache() == null) {
+            return new HashMap<>(values);
+        }
+        final Serializer serializer = store.getSerializer();
+        return new HashMap<>((Map<String, Object>) serializer.deserializeFromBytes(serializer.serializeToBytes(values)));
+    }
+
+    protected void setRequestSessionValues(final WebContext context, final String prefixedSessionKey, final Map<String, Object> values) {
+        ((PlayWebContext) context).setRequestSessionValues(REQUEST_VALUES_KEY, new RequestSessionValues(prefixedSessionKey, values,
+            this::writeSessionValues));
+    }
+
     @Override
     public boolean destroySession(final WebContext context) {
         final String sessionId = getSessionIdFromSessionOrRequest(context);
@@ -146,7 +381,16 @@ public class PlayCacheSessionStore implements SessionStore {
             ((PlayWebContext) context).setNativeSession(new Http.Session(new HashMap<>()));
             context.setRequestAttribute(Pac4jConstants.SESSION_ID, null);
             final String prefixedSessionKey = getPrefixedSessionKey(sessionId);
-            store.remove(prefixedSessionKey);
+            if (profileIndex) {
+                final Map<String, Object> values = getSessionValues(context, prefixedSessionKey);
+                if (values != null) {
+                    for (final String profileId : getIndexedProfileIds(values, values.get(Pac4jConstants.USER_PROFILES))) {
+                        removeFromProfileIndex(profileId, sessionId);
+                    }
+                }
+            }
+            ((PlayWebContext) context).setRequestSessionValues(REQUEST_VALUES_KEY, null);
+            removeFromStore(context, prefixedSessionKey);
         }
         return true;
     }
@@ -177,11 +421,11 @@ public class PlayCacheSessionStore implements SessionStore {
         final Map<String, Object> oldData = new HashMap<>();
         oldSessionId.ifPresent(sessionId -> {
             final String prefixedSessionId = getPrefixedSessionKey(sessionId);
-            final Optional<Map<String, Object>> optOldData = store.get(prefixedSessionId);
-            optOldData.ifPresent(oldDataMap -> {
-                oldData.putAll(optOldData.get());
-                store.remove(prefixedSessionId);
-            });
+            final Map<String, Object> oldDataMap = getSessionValues(context, prefixedSessionId);
+            if (oldDataMap != null) {
+                oldData.putAll(oldDataMap);
+                removeFromStore(context, prefixedSessionId);
+            }
         });
 
         final PlayWebContext playWebContext = (PlayWebContext) context;
@@ -189,14 +433,90 @@ public class PlayCacheSessionStore implements SessionStore {
         context.setRequestAttribute(Pac4jConstants.SESSION_ID, null);
 
         final String newSessionId = getSessionId(context, true).get();
+        final String newPrefixedSessionKey = getPrefixedSessionKey(newSessionId);
         if (oldData.size() > 0) {
-            store.set(getPrefixedSessionKey(newSessionId), oldData);
+            setRequestSessionValues(context, newPrefixedSessionKey, oldData);
+            saveSessionValues(context, newPrefixedSessionKey, oldData);
+        } else {
+            setRequestSessionValues(context, newPrefixedSessionKey, null);
+        }
+
+        if (profileIndex && oldSessionId.isPresent()) {
+            for (final String profileId : getIndexedProfileIds(oldData, oldData.get(Pac4jConstants.USER_PROFILES))) {
+                removeFromProfileIndex(profileId, oldSessionId.get());
+                addToProfileIndex(profileId, newSessionId);
+            }
         }
 
         LOGGER.debug("Renewing session: {} -> {}", oldSessionId, newSessionId);
         return true;
     }
 
+    /**
+     * Destroy all the sessions of a profile (requires the profile index).
+     *
+     * @param profileId the profile identifier
+     * @return the number of sessions destroyed
+     */
+    public int revokeAllForProfile(final String profileId) {
+        final String indexKey = getPrefixedSessionKey(PROFILE_INDEX_PREFIX + profileId);
+        final PlayCacheStore<String, Map<String, Object>> indexStore = getIndexStore();
+        final Optional<Map<String, Object>> sessionIds = indexStore.get(indexKey);
+        if (sessionIds.isEmpty()) {
+            return 0;
+        }
+        for (final String sessionId : sessionIds.get().keySet()) {
+            LOGGER.debug("Revoke session: {} for profile: {}", sessionId, profileId);
+            store.remove(getPrefixedSessionKey(sessionId));
+        }
+        indexStore.remove(indexKey);
+        return sessionIds.get().size();
+    }
+
+    protected Set<String> getProfileIds(final Object profiles) {
+        final Set<String> ids = new HashSet<>();
+        if (profiles instanceof Map<?, ?> profilesMap) {
+            for (final Object profile : profilesMap.values()) {
+                if (profile instanceof UserProfile userProfile && userProfile.getId() != null) {
+                    ids.add(userProfile.getId());
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Add a session to the index of a profile. The index entry holds the session identifiers with the time they were added.
+     * As the sessions may be extended by their writes and by the sliding expiration, the sessions no longer in the store
+     * are removed from the entry.
+     *
+     * @param profileId the profile identifier
+     * @param sessionId the session identifier
+     */
+    protected void addToProfileIndex(final String profileId, final String sessionId) {
+        final String indexKey = getPrefixedSessionKey(PROFILE_INDEX_PREFIX + profileId);
+        final PlayCacheStore<String, Map<String, Object>> indexStore = getIndexStore();
+        final Map<String, Object> sessionIds = new HashMap<>(indexStore.get(indexKey).orElse(Map.of()));
+        sessionIds.keySet().removeIf(id -> store.get(getPrefixedSessionKey(id)).isEmpty());
+        sessionIds.put(sessionId, System.currentTimeMillis());
+        indexStore.set(indexKey, sessionIds);
+    }
+
+    protected void removeFromProfileIndex(final String profileId, final String sessionId) {
+        final String indexKey = getPrefixedSessionKey(PROFILE_INDEX_PREFIX + profileId);
+        final PlayCacheStore<String, Map<String, Object>> indexStore = getIndexStore();
+        final Optional<Map<String, Object>> optSessionIds = indexStore.get(indexKey);
+        if (optSessionIds.isPresent() && optSessionIds.get().containsKey(sessionId)) {
+            final Map<String, Object> sessionIds = new HashMap<>(optSessionIds.get());
+            sessionIds.remove(sessionId);
+            if (sessionIds.isEmpty()) {
+                indexStore.remove(indexKey);
+            } else {
+                indexStore.set(indexKey, sessionIds);
+            }
+        }
+    }
+
     public int getTimeout() {
         return this.store.getTimeout();
     }
@@ -12,6 +12,8 @@ import org.pac4j.core.util.serializer.Serializer;
 import play.cache.SyncCacheApi;
 
 import javax.inject.Inject;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -34,6 +36,27 @@ public class PlayCacheStore<K, O> extends AbstractStore<K, O> {
     @Setter
     private Serializer serializer = new JsonSerializer();
 
+    @Getter
+    @Setter
+    // optional in-process cache in front of the Play cache
+    private NearCache<O> nearCache;
+
+    @Getter
+    // optional channel to invalidate the near caches of the other nodes
+    private InvalidationBus invalidationBus;
+
+    @Getter
+    @Setter
+    // the expiration of a value is refreshed at most once per this fraction of the timeout
+    private double touchRatio = 0.25;
+
+    @Getter
+    @Setter
+    // the maximum number of keys for which the last refresh is remembered
+    private int maxTouchedKeys = 100_000;
+
+    private volatile NearCache<Boolean> touchedKeys;
+
     @Inject
     public PlayCacheStore(final SyncCacheApi cacheApi) {
         this.cacheProvider = null;
@@ -55,17 +78,137 @@ public class PlayCacheStore<K, O> extends AbstractStore<K, O> {
 
     @Override
     protected Optional<O> internalGet(final K key) {
-        return getCache().get(computeKey(key));
+        final String computedKey = computeKey(key);
+        final NearCache<O> nearCache = this.nearCache;
+        if (nearCache == null) {
+            return getCache().get(computedKey);
+        }
+        final String nearCacheKey = computeNearCacheKey(computedKey);
+        final O nearValue = nearCache.get(nearCacheKey);
+        if (nearValue != null) {
+            return Optional.of(nearValue);
+        }
+        // the value is not cached if the key is invalidated meanwhile
+        final long stamp = nearCache.stamp();
+        final Optional<O> value = getCache().get(computedKey);
+        value.ifPresent(v -> nearCache.put(nearCacheKey, v, stamp));
+        return value;
     }
 
     @Override
     protected void internalSet(final K key, final O value) {
-        getCache().set(computeKey(key), value, this.timeout);
+        final String computedKey = computeKey(key);
+        getCache().set(computedKey, value, this.timeout);
+        markTouched(computedKey);
+        invalidateNearCache(key);
     }
 
     @Override
     protected void internalRemove(final K key) {
         getCache().remove(computeKey(key));
+        invalidateNearCache(key);
+    }
+
+    /**
+     * Invalidate a key in the near cache of all the nodes, once the value has been written in the Play cache:
+     * otherwise, a concurrent read could put the previous value back in the near cache.
+     *
+     * @param key the key
+     */
+    protected void invalidateNearCache(final K key) {
+        final NearCache<O> nearCache = this.nearCache;
+        if (nearCache != null) {
+            final String nearCacheKey = computeNearCacheKey(computeKey(key));
+            nearCache.invalidate(nearCacheKey);
+            if (invalidationBus != null) {
+                invalidationBus.publish(List.of(nearCacheKey));
+            }
+        }
+    }
+
+    // the near cache entries are indexed by the keys of the invalidation bus
+    protected String computeNearCacheKey(final String computedKey) {
+        final InvalidationBus bus = this.invalidationBus;
+        return bus != null ? bus.hashKey(computedKey) : computedKey;
+    }
+
+    /**
+     * Refresh the expiration of a value (sliding expiration).
+     *
+     * As the Play cache has no native support, the value is written again, but at most once per
+     * <code>touchRatio * timeout</code> for a given key. The value is read again from the Play cache just before:
+     * the value known by the caller may come from the near cache and be outdated (like a destroyed session).
+     *
+     * @param key the key
+     */
+    public void touch(final K key) {
+        if (timeout > 0) {
+            final String computedKey = computeKey(key);
+            if (!isRecentlyTouched(computedKey)) {
+                markTouched(computedKey);
+                refreshExpiration(computedKey);
+            }
+        }
+    }
+
+    /**
+     * Refresh the expiration of a value read by the caller (sliding expiration), see {@link #touch(Object)}.
+     *
+     * @param key the key
+     * @param value the value read by the caller, only refreshed if it exists
+     */
+    public void touch(final K key, final O value) {
+        if (value != null) {
+            touch(key);
+        }
+    }
+
+    protected boolean isRecentlyTouched(final String computedKey) {
+        return getTouchedKeys().get(computedKey) != null;
+    }
+
+    // a write also refreshes the expiration
+    protected void markTouched(final String computedKey) {
+        if (timeout > 0) {
+            getTouchedKeys().put(computedKey, Boolean.TRUE);
+        }
+    }
+
+    protected void refreshExpiration(final String computedKey) {
+        final SyncCacheApi cache = getCache();
+        cache.<O>get(computedKey).ifPresent(value -> cache.set(computedKey, value, this.timeout));
+    }
+
+    private NearCache<Boolean> getTouchedKeys() {
+        final long intervalMillis = (long) (timeout * touchRatio * 1000);
+        NearCache<Boolean> current = touchedKeys;
+        if (current == null || current.getTimeToLive().toMillis() != intervalMillis || current.getMaxSize() != maxTouchedKeys) {
+            // only rebuilt when the settings change: a concurrent rebuild just forgets the recent refreshes
+            current = new NearCache<>(maxTouchedKeys, Duration.ofMillis(intervalMillis));
+            touchedKeys = current;
+        }
+        return current;
+    }
+
+    /**
+     * Define the invalidation bus: the keys invalidated by the other nodes are evicted from the near cache.
+     *
+     * @param invalidationBus the invalidation bus
+     */
+    public void setInvalidationBus(final InvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        // the keys of the near cache entries may have changed
+        if (nearCache != null) {
+            nearCache.invalidateAll();
+        }
+        if (invalidationBus != null) {
+            invalidationBus.subscribe(keys -> {
+                final NearCache<O> cache = this.nearCache;
+                if (cache != null) {
+                    keys.forEach(cache::invalidate);
+                }
+            });
+        }
     }
 
     protected String computeKey(final Object objKey) {
@@ -2,28 +2,37 @@ package org.pac4j.play.store;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.pac4j.core.context.Cookie;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.core.exception.TechnicalException;
 import org.pac4j.core.profile.CommonProfile;
 import org.pac4j.core.util.Pac4jConstants;
 import org.pac4j.core.util.serializer.JsonSerializer;
 import org.pac4j.core.util.serializer.Serializer;
 import org.pac4j.play.PlayWebContext;
+import play.api.http.HttpConfiguration;
+import play.api.http.SessionConfiguration;
+import play.mvc.Http;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import play.mvc.Http;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * A session store which only uses the Play Session cookie for storage, allowing for a stateless backend.
  *
+ * As browsers drop the cookies larger than 4 KB, the session values can be split across several cookies
+ * (<code>pac4j.0</code>, <code>pac4j.1</code>...) by setting the <code>maxChunks</code> property: the Play Session
+ * then only holds a reference to the chunks (with the SHA-256 digest of their content, protected by the signature
+ * of the Play Session) which are reassembled on read. The chunk cookies get the path, domain and SameSite policy
+ * of the Play Session cookie when the session configuration is defined.
+ *
  * @author Vidmantas Zemleris
  * @since 6.1.0
  */
@@ -34,25 +43,69 @@ public class PlayCookieSessionStore implements SessionStore {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PlayCookieSessionStore.class);
 
+    private static final String CHUNKS_PREFIX = "*";
+
+    private static final double NEAR_LIMIT_RATIO = 0.8;
+
+    private static final CompressionCodec[] BUILTIN_CODECS = {
+        NoCompressionCodec.INSTANCE, new DeflaterCompressionCodec(), GzipCompressionCodec.INSTANCE
+    };
+
     private String sessionName = "pac4j";
 
     private DataEncrypter dataEncrypter = new JdkAesDataEncrypter();
 
     private Serializer serializer = new JsonSerializer();
 
+    // write the session cookie only once, when the request or the response is supplemented (the native session
+    // is then only updated at this time)
+    private boolean writeBack = false;
+
+    private CompressionCodec compressionCodec = new DeflaterCompressionCodec();
+
+    // the codecs previously configured, still used to uncompress the existing session cookies
+    private List<CompressionCodec> previousCompressionCodecs = List.of();
+
+    // the serialized values smaller than this threshold (in bytes) are not compressed
+    private int compressionThreshold = 128;
+
+    // the maximum number of cookies used to store the session values (1: no chunking)
+    private int maxChunks = 1;
+
+    // the maximum size of the session values stored in one cookie
+    private int chunkSize = 3800;
+
+    // the attributes removed from the profiles before they are stored (optional)
+    private ProfileAttributesProjection profileProjection;
+
+    // the configuration of the Play Session cookie, applied to the chunk cookies (optional)
+    private SessionConfiguration sessionConfiguration;
+
     public PlayCookieSessionStore() {}
 
     public PlayCookieSessionStore(final DataEncrypter dataEncrypter) {
         this.dataEncrypter = dataEncrypter;
     }
 
+    @Inject
+    public PlayCookieSessionStore(final HttpConfiguration httpConfiguration) {
+        this.sessionConfiguration = httpConfiguration.session();
+    }
+
     @Override
     public Optional<String> getSessionId(final WebContext context, final boolean createSession) {
-        final Http.Session session = ((PlayWebContext) context).getNativeSession();
-        if (session.get(sessionName).isPresent()) {
+        final PlayWebContext playWebContext = (PlayWebContext) context;
+        final RequestSessionValues cachedValues = playWebContext.getRequestSessionValues(sessionName);
+        final boolean exists;
+        if (cachedValues != null && cachedValues.isDirty()) {
+            exists = cachedValues.getValues() != null;
+        } else {
+            exists = playWebContext.getNativeSession().get(sessionName).isPresent();
+        }
+        if (exists) {
             return Optional.of(sessionName);
         } else if (createSession) {
-            putSessionValues(context, new HashMap<>());
+            saveSessionValues(context, new HashMap<>());
             return Optional.of(sessionName);
         } else {
             return Optional.empty();
@@ -72,18 +125,31 @@ public class PlayCookieSessionStore implements SessionStore {
     }
 
     protected Map<String, Object> getSessionValues(final WebContext context) {
-        final Http.Session session = ((PlayWebContext) context).getNativeSession();
-        final String sessionValue = session.get(sessionName).orElse(null);
+        final PlayWebContext playWebContext = (PlayWebContext) context;
+        final RequestSessionValues cachedValues = playWebContext.getRequestSessionValues(sessionName);
+        // not written yet
+        if (cachedValues != null && cachedValues.isDirty()) {
+            return cachedValues.getValues() != null ? cachedValues.getValues() : new HashMap<>();
+        }
+        final String sessionValue = playWebContext.getNativeSession().get(sessionName).orElse(null);
+        // the values are decoded only once per request, as long as the session cookie is unchanged
+        if (cachedValues != null && Objects.equals(cachedValues.getSource(), sessionValue)) {
+            return cachedValues.getValues();
+        }
         Map<String, Object> values = null;
-        if (sessionValue != null) {
-            final byte[] inputBytes = Base64.getDecoder().decode(sessionValue);
-            values = (Map<String, Object>) serializer.deserializeFromBytes(uncompressBytes(dataEncrypter.decrypt(inputBytes)));
+        final String encodedValues = sessionValue != null ? readChunks(playWebContext, sessionValue) : null;
+        if (encodedValues != null) {
+            final byte[] inputBytes = Base64.getDecoder().decode(encodedValues);
+            final byte[] uncompressedBytes = uncompress(dataEncrypter.decrypt(inputBytes));
+            if (uncompressedBytes != null) {
+                values = (Map<String, Object>) serializer.deserializeFromBytes(uncompressedBytes);
+            }
         }
-        if (values != null) {
-            return values;
-        } else {
-            return new HashMap<>();
+        if (values == null) {
+            values = new HashMap<>();
         }
+        playWebContext.setRequestSessionValues(sessionName, new RequestSessionValues(sessionValue, values, this::writeSessionValues));
+        return values;
     }
 
     @Override
@@ -96,9 +162,15 @@ public class PlayCookieSessionStore implements SessionStore {
 
         final Map<String, Object> values = getSessionValues(context);
         if (value == null) {
+            if (!values.containsKey(key)) {
+                return;
+            }
             // let's try to save some space by removing the key for a null value
             values.remove(key);
         } else {
+            if (value instanceof String && value.equals(values.get(key))) {
+                return;
+            }
             Object clearedValue = value;
             if (Pac4jConstants.USER_PROFILES.equals(key)) {
                 clearedValue = clearUserProfiles(value);
@@ -106,14 +178,40 @@ public class PlayCookieSessionStore implements SessionStore {
             values.put(key, clearedValue);
         }
 
-        putSessionValues(context, values);
+        saveSessionValues(context, values);
+    }
+
+    /**
+     * Save the session values: either write them immediately or mark them as dirty in the web context in write back mode.
+     *
+     * @param context the web context
+     * @param values the session values (<code>null</code> to remove the session)
+     */
+    protected void saveSessionValues(final WebContext context, final Map<String, Object> values) {
+        if (writeBack) {
+            final PlayWebContext playWebContext = (PlayWebContext) context;
+            RequestSessionValues cachedValues = playWebContext.getRequestSessionValues(sessionName);
+            if (cachedValues == null) {
+                cachedValues = new RequestSessionValues(null, values, this::writeSessionValues);
+                playWebContext.setRequestSessionValues(sessionName, cachedValues);
+            } else {
+                cachedValues.setValues(values);
+            }
+            cachedValues.setDirty(true);
+        } else {
+            putSessionValues(context, values);
+        }
+    }
+
+    protected void writeSessionValues(final PlayWebContext context, final RequestSessionValues cachedValues) {
+        putSessionValues(context, cachedValues.getValues());
     }
 
     protected void putSessionValues(final WebContext context, final Map<String, Object> values) {
         String serialized = null;
         if (values != null) {
             final byte[] javaSerBytes = serializer.serializeToBytes(values);
-            serialized = Base64.getEncoder().encodeToString(dataEncrypter.encrypt(compressBytes(javaSerBytes)));
+            serialized = Base64.getEncoder().encodeToString(dataEncrypter.encrypt(compress(javaSerBytes)));
         }
         if (serialized != null) {
             LOGGER.trace("serialized token size = {}", serialized.length());
@@ -121,16 +219,156 @@ public class PlayCookieSessionStore implements SessionStore {
             LOGGER.trace("-> null serialized token");
         }
         final PlayWebContext playWebContext = (PlayWebContext) context ;
+        serialized = writeChunks(playWebContext, serialized);
         if (serialized == null) {
             playWebContext.setNativeSession(playWebContext.getNativeSession().removing(sessionName));
         } else {
             playWebContext.setNativeSession(playWebContext.getNativeSession().adding(sessionName, serialized));
         }
+        // keep the values matching the new session cookie to avoid decoding it again
+        final Map<String, Object> newValues = serialized != null ? values : new HashMap<>();
+        final RequestSessionValues cachedValues = playWebContext.getRequestSessionValues(sessionName);
+        if (cachedValues != null) {
+            cachedValues.setSource(serialized);
+            cachedValues.setValues(newValues);
+        } else {
+            playWebContext.setRequestSessionValues(sessionName,
+                new RequestSessionValues(serialized, newValues, this::writeSessionValues));
+        }
+    }
+
+    /**
+     * Split the encoded session values into chunk cookies if they are too large and expire the chunks no longer used.
+     *
+     * @param context the web context
+     * @param encodedValues the encoded session values (<code>null</code> to remove the session)
+     * @return the value to store in the Play Session: the encoded values or a reference to the chunks
+     */
+    protected String writeChunks(final PlayWebContext context, final String encodedValues) {
+        int nbChunks = 0;
+        String sessionValue = encodedValues;
+        if (encodedValues != null) {
+            final int length = encodedValues.length();
+            final int limit = chunkSize * Math.max(maxChunks, 1);
+            if (length > limit * NEAR_LIMIT_RATIO) {
+                LOGGER.warn("Session cookie size: {} is close to the limit: {} ({} chunk(s) of {})", length, limit, maxChunks, chunkSize);
+            }
+            if (maxChunks > 1 && length > chunkSize) {
+                nbChunks = (length + chunkSize - 1) / chunkSize;
+                if (nbChunks > maxChunks) {
+                    LOGGER.error("Session cookie size: {} exceeds the limit: {} -> the session is removed", length, limit);
+                    nbChunks = 0;
+                    sessionValue = null;
+                } else {
+                    for (int i = 0; i < nbChunks; i++) {
+                        final int end = Math.min(length, (i + 1) * chunkSize);
+                        context.addResponseCookie(newChunkCookie(context, i, encodedValues.substring(i * chunkSize, end)));
+                    }
+                    sessionValue = CHUNKS_PREFIX + nbChunks + "." + checksum(encodedValues);
+                }
+            }
+        }
+        // expire the remaining chunks of the request
+        final Http.Cookies requestCookies = context.getNativeJavaRequest().cookies();
+        for (int i = nbChunks; requestCookies.get(chunkName(i)).isPresent(); i++) {
+            final Cookie cookie = newChunkCookie(context, i, "");
+            cookie.setMaxAge(0);
+            context.addResponseCookie(cookie);
+        }
+        return sessionValue;
+    }
+
+    /**
+     * Read the encoded session values from the Play Session value, reassembling the chunk cookies if necessary.
+     *
+     * @param context the web context
+     * @param sessionValue the Play Session value
+     * @return the encoded session values (or <code>null</code> if the chunks are missing or inconsistent)
+     */
+    protected String readChunks(final PlayWebContext context, final String sessionValue) {
+        // Base64 values never start with the chunks prefix
+        if (!sessionValue.startsWith(CHUNKS_PREFIX)) {
+            return sessionValue;
+        }
+        final int dot = sessionValue.indexOf('.');
+        final int nbChunks;
+        try {
+            nbChunks = Integer.parseInt(sessionValue.substring(CHUNKS_PREFIX.length(), dot));
+        } catch (final RuntimeException e) {
+            LOGGER.error("Invalid session chunks reference: {}", sessionValue);
+            return null;
+        }
+        if (nbChunks < 1 || nbChunks > Math.max(maxChunks, 1)) {
+            LOGGER.error("Invalid number of session chunks: {} (maximum: {})", nbChunks, maxChunks);
+            return null;
+        }
+        final Http.Cookies requestCookies = context.getNativeJavaRequest().cookies();
+        final StringBuilder sb = new StringBuilder(nbChunks * chunkSize);
+        for (int i = 0; i < nbChunks; i++) {
+            final Optional<Http.Cookie> chunk = requestCookies.get(chunkName(i));
+            if (chunk.isEmpty()) {
+                LOGGER.warn("Missing session chunk: {}", chunkName(i));
+                return null;
+            }
+            sb.append(chunk.get().value());
+        }
+        final String encodedValues = sb.toString();
+        if (!MessageDigest.isEqual(sessionValue.substring(dot + 1).getBytes(StandardCharsets.US_ASCII),
+            checksum(encodedValues).getBytes(StandardCharsets.US_ASCII))) {
+            LOGGER.warn("Inconsistent session chunks: {}", sessionValue);
+            return null;
+        }
+        return encodedValues;
+    }
+
+    /**
+     * Build the cookie for a session chunk.
+     *
+     * @param context the web context
+     * @param index the index of the chunk
+     * @param value the value of the chunk
+     * @return the cookie
+     */
+    protected Cookie newChunkCookie(final WebContext context, final int index, final String value) {
+        final Cookie cookie = new Cookie(chunkName(index), value);
+        if (sessionConfiguration != null) {
+            cookie.setPath(sessionConfiguration.path());
+            if (sessionConfiguration.domain().isDefined()) {
+                cookie.setDomain(sessionConfiguration.domain().get());
+            }
+            if (sessionConfiguration.sameSite().isDefined()) {
+                cookie.setSameSitePolicy(sessionConfiguration.sameSite().get().value());
+            }
+            if (sessionConfiguration.maxAge().isDefined()) {
+                cookie.setMaxAge((int) sessionConfiguration.maxAge().get().toSeconds());
+            }
+            cookie.setHttpOnly(sessionConfiguration.httpOnly());
+            cookie.setSecure(sessionConfiguration.secure() || context.isSecure());
+        } else {
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setSecure(context.isSecure());
+        }
+        return cookie;
+    }
+
+    protected String chunkName(final int index) {
+        return sessionName + "." + index;
+    }
+
+    // the digest is stored in the signed Play Session, so the chunks cannot be replaced
+    private static String checksum(final String value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new TechnicalException(e);
+        }
     }
 
     @Override
     public boolean destroySession(final WebContext context) {
-        putSessionValues(context, null);
+        saveSessionValues(context, null);
         return true;
     }
 
@@ -152,33 +390,60 @@ public class PlayCookieSessionStore implements SessionStore {
     protected Object clearUserProfiles(Object value) {
         final LinkedHashMap<String, CommonProfile> profiles = (LinkedHashMap<String, CommonProfile>) value;
         profiles.forEach((name, profile) -> profile.removeLoginData());
-        return profiles;
+        if (profileProjection == null) {
+            return profiles;
+        }
+        // the profiles of the current request are left untouched
+        final LinkedHashMap<String, CommonProfile> projectedProfiles = new LinkedHashMap<>();
+        profiles.forEach((name, profile) -> projectedProfiles.put(name, profileProjection.project(profile)));
+        return projectedProfiles;
     }
 
-    public static byte[] uncompressBytes(byte [] zippedBytes) {
-        final ByteArrayOutputStream resultBao = new ByteArrayOutputStream();
-        try (GZIPInputStream zipInputStream = new GZIPInputStream(new ByteArrayInputStream(zippedBytes))) {
-            byte[] buffer = new byte[8192];
-            int len;
-            while ((len = zipInputStream.read(buffer)) > 0) {
-                resultBao.write(buffer, 0, len);
-            }
-            return resultBao.toByteArray();
-        } catch (IOException e) {
-            LOGGER.error("Unable to uncompress session cookie", e);
-            return null;
-        }
+    /**
+     * Compress the bytes with the configured codec, unless they are too small.
+     *
+     * @param srcBytes the raw bytes
+     * @return the compressed bytes, starting with the identifier of the codec used
+     */
+    protected byte[] compress(final byte[] srcBytes) {
+        final CompressionCodec codec = srcBytes.length < compressionThreshold ? NoCompressionCodec.INSTANCE : compressionCodec;
+        return codec.compress(srcBytes);
     }
 
-    public static byte[] compressBytes(byte[] srcBytes) {
-        final ByteArrayOutputStream resultBao = new ByteArrayOutputStream();
-        try (GZIPOutputStream zipOutputStream = new GZIPOutputStream(resultBao)) {
-            zipOutputStream.write(srcBytes);
-        } catch (IOException e) {
-            LOGGER.error("Unable to compress session cookie", e);
+    /**
+     * Uncompress the bytes with the codec identified by their first byte: the configured one, a previous one
+     * or a built-in one.
+     *
+     * @param compressedBytes the compressed bytes
+     * @return the uncompressed bytes (or <code>null</code>)
+     */
+    protected byte[] uncompress(final byte[] compressedBytes) {
+        if (compressedBytes == null || compressedBytes.length == 0) {
             return null;
         }
+        final byte id = compressedBytes[0];
+        if (compressionCodec.getId() == id) {
+            return compressionCodec.uncompress(compressedBytes);
+        }
+        for (final CompressionCodec codec : previousCompressionCodecs) {
+            if (codec.getId() == id) {
+                return codec.uncompress(compressedBytes);
+            }
+        }
+        for (final CompressionCodec codec : BUILTIN_CODECS) {
+            if (codec.getId() == id) {
+                return codec.uncompress(compressedBytes);
+            }
+        }
+        LOGGER.error("Unable to uncompress session cookie: unknown codec {}", id);
+        return null;
+    }
 
-        return resultBao.toByteArray();
+    public static byte[] uncompressBytes(byte [] zippedBytes) {
+        return GzipCompressionCodec.INSTANCE.uncompress(zippedBytes);
+    }
+
+    public static byte[] compressBytes(byte[] srcBytes) {
+        return GzipCompressionCodec.INSTANCE.compress(srcBytes);
     }
 }
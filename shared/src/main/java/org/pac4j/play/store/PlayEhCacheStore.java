@@ -33,9 +33,20 @@ public class PlayEhCacheStore<K, O> extends PlayCacheStore<K, O> {
 
     @Override
     protected void internalSet(final K key, final O value) {
-        final Element e = new Element(computeKey(key), value);
+        final String computedKey = computeKey(key);
+        final Element e = new Element(computedKey, value);
         // FIX: by default, the Play framework will use the setTimeToLive
         e.setTimeToIdle(getTimeout());
         getEhcache().put(e);
+        markTouched(computedKey);
+        invalidateNearCache(key);
+    }
+
+    @Override
+    public void touch(final K key) {
+        // EhCache natively supports the time to idle: an access is enough
+        if (getTimeout() > 0) {
+            getEhcache().get(computeKey(key));
+        }
     }
 }
@@ -0,0 +1,114 @@
+package org.pac4j.play.store;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.pac4j.core.profile.CommonProfile;
+import org.pac4j.core.util.serializer.JsonSerializer;
+import org.pac4j.core.util.serializer.Serializer;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Restrict the attributes of the profiles stored in the session: an allow-list or a deny-list of attribute names
+ * can be defined per client name or profile class name (the client name is checked first, then the profile class
+ * and its superclasses).
+ *
+ * The profiles are not updated: the attributes are removed from a copy (made by serialization) which is stored instead,
+ * so the profile of the current request keeps all its attributes.
+ *
+ * The removed attributes can be saved in a {@link ProfileAttributesStore} to be restored on demand
+ * via the {@link #rehydrate(CommonProfile)} method.
+ *
+ * @since 13.0.4
+ */
+@Getter
+@Setter
+@ToString
+public class ProfileAttributesProjection {
+
+    private Map<String, Set<String>> allowedAttributes = new HashMap<>();
+
+    private Map<String, Set<String>> deniedAttributes = new HashMap<>();
+
+    private ProfileAttributesStore attributesStore;
+
+    // used to copy the profiles
+    private Serializer serializer = new JsonSerializer();
+
+    public ProfileAttributesProjection allow(final String clientOrClassName, final String... attributes) {
+        allowedAttributes.put(clientOrClassName, new HashSet<>(Arrays.asList(attributes)));
+        return this;
+    }
+
+    public ProfileAttributesProjection deny(final String clientOrClassName, final String... attributes) {
+        deniedAttributes.put(clientOrClassName, new HashSet<>(Arrays.asList(attributes)));
+        return this;
+    }
+
+    /**
+     * Remove the attributes of the profile which must not be stored in the session.
+     *
+     * @param profile the profile (not updated)
+     * @return the profile itself if no attribute must be removed, a copy without the removed attributes otherwise
+     */
+    public CommonProfile project(final CommonProfile profile) {
+        final Predicate<String> toRemove = attributesToRemove(profile);
+        if (toRemove == null || profile.getAttributes().keySet().stream().noneMatch(toRemove)) {
+            return profile;
+        }
+        final CommonProfile copy = (CommonProfile) serializer.deserializeFromBytes(serializer.serializeToBytes(profile));
+        removeAttributes(copy, toRemove);
+        return copy;
+    }
+
+    protected Predicate<String> attributesToRemove(final CommonProfile profile) {
+        final List<String> keys = new ArrayList<>();
+        keys.add(profile.getClientName());
+        for (Class<?> clazz = profile.getClass(); clazz != Object.class; clazz = clazz.getSuperclass()) {
+            keys.add(clazz.getName());
+        }
+        for (final String key : keys) {
+            if (key == null) {
+                continue;
+            }
+            final Set<String> allowed = allowedAttributes.get(key);
+            if (allowed != null) {
+                return name -> !allowed.contains(name);
+            }
+            final Set<String> denied = deniedAttributes.get(key);
+            if (denied != null) {
+                return denied::contains;
+            }
+        }
+        return null;
+    }
+
+    protected void removeAttributes(final CommonProfile profile, final Predicate<String> toRemove) {
+        final Map<String, Object> removed = new HashMap<>();
+        for (final String name : new ArrayList<>(profile.getAttributes().keySet())) {
+            if (toRemove.test(name)) {
+                removed.put(name, profile.getAttribute(name));
+                profile.removeAttribute(name);
+            }
+        }
+        if (attributesStore != null && !removed.isEmpty()) {
+            attributesStore.save(profile, removed);
+        }
+    }
+
+    /**
+     * Restore the attributes removed from the profile, if they were saved in the attributes store.
+     *
+     * @param profile the profile (updated in place)
+     */
+    public void rehydrate(final CommonProfile profile) {
+        if (attributesStore != null) {
+            final Map<String, Object> attributes = attributesStore.load(profile);
+            if (attributes != null) {
+                profile.addAttributes(attributes);
+            }
+        }
+    }
+}
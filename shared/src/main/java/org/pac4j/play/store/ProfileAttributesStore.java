@@ -0,0 +1,29 @@
+package org.pac4j.play.store;
+
+import org.pac4j.core.profile.UserProfile;
+
+import java.util.Map;
+
+/**
+ * A server-side storage for the profile attributes removed by the {@link ProfileAttributesProjection}.
+ *
+ * @since 13.0.4
+ */
+public interface ProfileAttributesStore {
+
+    /**
+     * Save the attributes removed from the profile.
+     *
+     * @param profile the profile
+     * @param attributes the removed attributes
+     */
+    void save(UserProfile profile, Map<String, Object> attributes);
+
+    /**
+     * Load the attributes previously removed from the profile.
+     *
+     * @param profile the profile
+     * @return the removed attributes (or <code>null</code>)
+     */
+    Map<String, Object> load(UserProfile profile);
+}
@@ -0,0 +1,66 @@
+package org.pac4j.play.store;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.pac4j.play.PlayWebContext;
+
+import java.util.Map;
+
+/**
+ * Session values loaded by a session store and kept in the {@link PlayWebContext} for the time of the request,
+ * to avoid loading (and decoding) them again on each access.
+ *
+ * When they are marked as dirty, the values are only written by the session store when the web context
+ * is flushed (supplementing the request or the response).
+ *
+ * @since 13.0.4
+ */
+@Getter
+@Setter
+@ToString(exclude = "writer")
+public class RequestSessionValues {
+
+    // what the values have been loaded from: the encoded cookie, the session identifier...
+    private String source;
+
+    private Map<String, Object> values;
+
+    private boolean dirty;
+
+    private final Writer writer;
+
+    public RequestSessionValues(final String source, final Map<String, Object> values) {
+        this(source, values, null);
+    }
+
+    public RequestSessionValues(final String source, final Map<String, Object> values, final Writer writer) {
+        this.source = source;
+        this.values = values;
+        this.writer = writer;
+    }
+
+    /**
+     * Write the values if they are dirty.
+     *
+     * @param context the web context
+     */
+    public void flush(final PlayWebContext context) {
+        if (dirty) {
+            dirty = false;
+            if (writer != null) {
+                writer.write(context, this);
+            }
+        }
+    }
+
+    /**
+     * Writes the session values into the underlying storage. It must update the values in place and not
+     * add or remove session values from the web context.
+     */
+    @FunctionalInterface
+    public interface Writer {
+
+        void write(PlayWebContext context, RequestSessionValues values);
+    }
+}
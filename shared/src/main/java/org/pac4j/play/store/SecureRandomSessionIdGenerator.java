@@ -0,0 +1,66 @@
+package org.pac4j.play.store;
+
+import lombok.ToString;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * The default session identifier generator: random bytes (128 bits by default) encoded in URL-safe Base64 without padding.
+ *
+ * The DRBG {@link SecureRandom} instances are kept in a bounded pool and reused across calls (as the ciphers of the
+ * {@link AesGcmDataEncrypter}), so that the generation does not contend on a shared instance under load, without seeding
+ * a new instance for each (virtual) thread.
+ *
+ * @since 13.0.4
+ */
+@ToString(of = "length")
+public class SecureRandomSessionIdGenerator implements SessionIdGenerator {
+
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final Queue<SecureRandom> RANDOMS = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final int length;
+
+    public SecureRandomSessionIdGenerator() {
+        this(16);
+    }
+
+    /**
+     * Define the number of random bytes.
+     *
+     * @param length the number of random bytes (at least 16)
+     */
+    public SecureRandomSessionIdGenerator(final int length) {
+        if (length < 16) {
+            throw new IllegalArgumentException("The session identifier must have at least 128 random bits");
+        }
+        this.length = length;
+    }
+
+    @Override
+    public String generate() {
+        final byte[] bytes = new byte[length];
+        SecureRandom random = RANDOMS.poll();
+        if (random == null) {
+            random = newSecureRandom();
+        }
+        random.nextBytes(bytes);
+        RANDOMS.offer(random);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    private static SecureRandom newSecureRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (final NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+}
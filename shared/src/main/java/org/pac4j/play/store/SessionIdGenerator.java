@@ -0,0 +1,17 @@
+package org.pac4j.play.store;
+
+/**
+ * Generates the identifiers of the sessions stored on the server side.
+ *
+ * @since 13.0.4
+ */
+@FunctionalInterface
+public interface SessionIdGenerator {
+
+    /**
+     * Generate a new session identifier: it must be unique and unpredictable.
+     *
+     * @return the session identifier
+     */
+    String generate();
+}
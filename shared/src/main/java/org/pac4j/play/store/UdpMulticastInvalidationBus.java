@@ -0,0 +1,233 @@
+package org.pac4j.play.store;
+
+import lombok.ToString;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * An invalidation bus based on UDP multicast.
+ *
+ * As the datagrams are not encrypted, the keys (like the session identifiers) are never sent as is:
+ * they are replaced by a keyed hash (HMAC-SHA256 with a secret shared by the nodes, truncated to 128 bits, see {@link #hashKey}),
+ * which is also the key of the near cache entries.
+ *
+ * The published keys are queued and sent by a background thread, which batches all the pending keys into as few
+ * datagrams as possible: <code>version (1 byte) | node identifier (8 bytes) | keys separated by new lines</code>.
+ * The datagrams sent by the current node are ignored on reception.
+ *
+ * The delivery is not guaranteed: the time to live of the near caches must remain short.
+ *
+ * @since 13.0.4
+ */
+@ToString(of = {"group"})
+public final class UdpMulticastInvalidationBus implements InvalidationBus, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UdpMulticastInvalidationBus.class);
+
+    private final InetSocketAddress group;
+
+    private final Codec codec;
+
+    private final MulticastSocket socket;
+
+    private final BlockingQueue<String> pendingKeys = new LinkedBlockingQueue<>();
+
+    private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<>();
+
+    private final Thread sender;
+
+    private final Thread receiver;
+
+    private volatile boolean running = true;
+
+    public UdpMulticastInvalidationBus(final String groupAddress, final int port, final byte[] secret) throws IOException {
+        this(groupAddress, port, secret, null);
+    }
+
+    /**
+     * Join the multicast group and start the sender and receiver threads.
+     *
+     * @param groupAddress the multicast group address
+     * @param port the port
+     * @param secret the secret shared by the nodes to hash the keys (at least 16 bytes)
+     * @param networkInterface the network interface (optional)
+     * @throws IOException if the multicast group cannot be joined
+     */
+    public UdpMulticastInvalidationBus(final String groupAddress, final int port, final byte[] secret,
+                                       final NetworkInterface networkInterface) throws IOException {
+        this.codec = new Codec(new SecureRandom().nextLong(), secret);
+        this.group = new InetSocketAddress(InetAddress.getByName(groupAddress), port);
+        this.socket = new MulticastSocket(port);
+        if (networkInterface != null) {
+            this.socket.setNetworkInterface(networkInterface);
+        }
+        this.socket.joinGroup(group, networkInterface);
+        this.sender = new Thread(this::send, "pac4j-invalidation-sender");
+        this.sender.setDaemon(true);
+        this.sender.start();
+        this.receiver = new Thread(this::receive, "pac4j-invalidation-receiver");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    @Override
+    public String hashKey(final String key) {
+        return codec.hash(key);
+    }
+
+    @Override
+    public void publish(final Collection<String> keys) {
+        pendingKeys.addAll(keys);
+    }
+
+    @Override
+    public void subscribe(final Consumer<Collection<String>> listener) {
+        listeners.add(listener);
+    }
+
+    private void send() {
+        final List<String> keys = new ArrayList<>();
+        while (running) {
+            try {
+                keys.add(pendingKeys.take());
+                pendingKeys.drainTo(keys);
+                for (final ByteBuffer datagram : codec.encode(keys)) {
+                    socket.send(new DatagramPacket(datagram.array(), datagram.position(), group));
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final IOException | RuntimeException e) {
+                if (running) {
+                    LOGGER.error("Unable to send invalidations", e);
+                }
+            } finally {
+                keys.clear();
+            }
+        }
+    }
+
+    private void receive() {
+        final byte[] buffer = new byte[Codec.MAX_DATAGRAM_LENGTH];
+        while (running) {
+            try {
+                final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                socket.receive(packet);
+                final Collection<String> keys = codec.decode(packet.getData(), packet.getOffset(), packet.getLength());
+                if (!keys.isEmpty()) {
+                    for (final Consumer<Collection<String>> listener : listeners) {
+                        listener.accept(keys);
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                if (running) {
+                    LOGGER.error("Unable to receive invalidations", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        sender.interrupt();
+        socket.close();
+    }
+
+    /**
+     * The hashing of the keys and the format of the datagrams of a node.
+     */
+    static final class Codec {
+
+        private static final byte VERSION = 2;
+
+        private static final int HEADER_LENGTH = 9;
+
+        // fits in the usual MTU
+        static final int MAX_DATAGRAM_LENGTH = 1400;
+
+        private static final String ALGORITHM = "HmacSHA256";
+
+        private static final int HASH_LENGTH = 16;
+
+        private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+        private final long nodeId;
+
+        private final SecretKeySpec secretKey;
+
+        private final Queue<Mac> macs = new ArrayBlockingQueue<>(POOL_SIZE);
+
+        Codec(final long nodeId, final byte[] secret) {
+            CommonHelper.assertTrue(secret != null && secret.length >= 16, "secret must be at least 16 bytes long");
+            this.nodeId = nodeId;
+            this.secretKey = new SecretKeySpec(secret, ALGORITHM);
+        }
+
+        String hash(final String key) {
+            try {
+                Mac mac = macs.poll();
+                if (mac == null) {
+                    mac = Mac.getInstance(ALGORITHM);
+                    mac.init(secretKey);
+                }
+                final byte[] hash = mac.doFinal(key.getBytes(StandardCharsets.UTF_8));
+                macs.offer(mac);
+                return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, HASH_LENGTH));
+            } catch (final GeneralSecurityException e) {
+                throw new TechnicalException(e);
+            }
+        }
+
+        List<ByteBuffer> encode(final Collection<String> keys) {
+            final List<ByteBuffer> datagrams = new ArrayList<>();
+            ByteBuffer buffer = null;
+            for (final String key : keys) {
+                final byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+                if (HEADER_LENGTH + bytes.length + 1 > MAX_DATAGRAM_LENGTH) {
+                    LOGGER.warn("Key too long to be invalidated");
+                    continue;
+                }
+                if (buffer == null || buffer.remaining() < bytes.length + 1) {
+                    buffer = ByteBuffer.allocate(MAX_DATAGRAM_LENGTH);
+                    buffer.put(VERSION).putLong(nodeId);
+                    datagrams.add(buffer);
+                }
+                buffer.put(bytes).put((byte) '\n');
+            }
+            return datagrams;
+        }
+
+        Collection<String> decode(final byte[] data, final int offset, final int length) {
+            final ByteBuffer buffer = ByteBuffer.wrap(data, offset, length);
+            if (length < HEADER_LENGTH || buffer.get() != VERSION || buffer.getLong() == nodeId) {
+                return Collections.emptyList();
+            }
+            final String content = new String(data, offset + HEADER_LENGTH, length - HEADER_LENGTH, StandardCharsets.UTF_8);
+            final List<String> keys = new ArrayList<>();
+            int start = 0;
+            for (int end = content.indexOf('\n'); end >= 0; end = content.indexOf('\n', start)) {
+                keys.add(content.substring(start, end));
+                start = end + 1;
+            }
+            return keys;
+        }
+    }
+}
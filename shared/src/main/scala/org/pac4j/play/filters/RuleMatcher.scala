@@ -0,0 +1,184 @@
+package org.pac4j.play.filters
+
+import java.util.regex.{Pattern, PatternSyntaxException}
+
+import org.pac4j.core.util.CommonHelper
+import org.pac4j.play.filters.SecurityFilter.Rule
+
+import scala.collection.mutable
+
+/**
+  * Compiled form of the security rules which resolves the first matching rule of a path
+  * with the same result as testing the rules one by one in order.
+  *
+  * The rules are classified once at startup:
+  *  - literal rules (no regex metacharacter) are looked up in a map,
+  *  - prefix rules (a literal followed by `.*`) are resolved by walking a trie along the path,
+  *  - the other rules are combined into a single alternation, one named group per rule.
+  *
+  * Each source yields its lowest matching rule index and the smallest one wins. The path only rules are tested first,
+  * so the query string is only appended to the path if a rule which is not path only may still match first.
+  *
+  * @since 13.0.4
+  */
+private[filters] class RuleMatcher(rules: Seq[Rule]) {
+  import RuleMatcher._
+
+  private val indexedRules = rules.toIndexedSeq
+
+  private val pathOnlyRules = new CompiledRules(indexedRules.zipWithIndex.filter(_._1.pathOnly))
+
+  private val fullPathRules = new CompiledRules(indexedRules.zipWithIndex.filterNot(_._1.pathOnly))
+
+  /**
+    * Find the first matching rule.
+    *
+    * @param path the normalized path
+    * @param queryString the raw query string, only appended to the path for the rules which are not path only
+    * @return the first matching rule
+    */
+  def find(path: String, queryString: String = ""): Option[Rule] = {
+    var best = pathOnlyRules.find(path, Int.MaxValue)
+    if (fullPathRules.firstIndex < best) {
+      val fullPath = if (CommonHelper.isBlank(queryString)) path else s"$path?$queryString"
+      best = fullPathRules.find(fullPath, best)
+    }
+    if (best == Int.MaxValue) None else Some(indexedRules(best))
+  }
+}
+
+private[filters] object RuleMatcher {
+
+  private val MetaChars = "\\.[]{}()*+?^$|"
+
+  private val AnyChars = ".*"
+
+  private val BackReference = Pattern.compile("\\\\[1-9]")
+
+  private def groupName(index: Int): String = s"pac4jRule$index"
+
+  private def hasMetaChar(regex: String, end: Int): Boolean = {
+    var i = 0
+    while (i < end) {
+      if (MetaChars.indexOf(regex.charAt(i)) >= 0) {
+        return true
+      }
+      i += 1
+    }
+    false
+  }
+
+  // '.' does not match the line terminators, so a prefix rule only matches if none follows the prefix
+  private def isLineTerminator(c: Char): Boolean =
+    c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029'
+
+  private def lastLineTerminator(path: String): Int = {
+    var i = path.length - 1
+    while (i >= 0 && !isLineTerminator(path.charAt(i))) {
+      i -= 1
+    }
+    i
+  }
+
+  private class CompiledRules(rules: Seq[(Rule, Int)]) {
+
+    private val literals = mutable.HashMap.empty[String, Int]
+
+    private val trie = new Node
+
+    private val regexRules = mutable.ArrayBuffer.empty[(Rule, Int)]
+
+    private val separateRules = mutable.ArrayBuffer.empty[(Rule, Int)]
+
+    val firstIndex: Int = if (rules.isEmpty) Int.MaxValue else rules.map(_._2).min
+
+    rules.foreach { case (rule, index) =>
+      val regex = rule.pathRegex
+      if (!hasMetaChar(regex, regex.length)) {
+        literals.getOrElseUpdate(regex, index)
+      } else if (regex.endsWith(AnyChars) && !hasMetaChar(regex, regex.length - AnyChars.length)) {
+        trie.add(regex, regex.length - AnyChars.length, index)
+      } else if (BackReference.matcher(regex).find()) {
+        // group numbers are shifted in the alternation
+        separateRules += ((rule, index))
+      } else {
+        regexRules += ((rule, index))
+      }
+    }
+
+    private val combined: Option[Pattern] =
+      if (regexRules.isEmpty) None
+      else {
+        try {
+          Some(Pattern.compile(regexRules.map { case (rule, index) => s"(?<${groupName(index)}>${rule.pathRegex})" }.mkString("|")))
+        } catch {
+          case _: PatternSyntaxException =>
+            separateRules ++= regexRules
+            regexRules.clear()
+            None
+        }
+      }
+
+    private val sortedSeparateRules = separateRules.sortBy(_._2).toIndexedSeq
+
+    /**
+      * Find the index of the first matching rule, if lower than the provided limit.
+      */
+    def find(path: String, limit: Int): Int = {
+      var best = Math.min(limit, literals.getOrElse(path, Int.MaxValue))
+
+      best = Math.min(best, trie.find(path))
+
+      if (combined.isDefined && regexRules.head._2 < best) {
+        val matcher = combined.get.matcher(path)
+        if (matcher.matches()) {
+          // the alternatives are tried in order, so the first participating group is the first matching rule
+          val index = regexRules.collectFirst { case (_, i) if matcher.start(groupName(i)) >= 0 => i }.getOrElse(Int.MaxValue)
+          best = Math.min(best, index)
+        }
+      }
+
+      var i = 0
+      while (i < sortedSeparateRules.length && sortedSeparateRules(i)._2 < best) {
+        val (rule, index) = sortedSeparateRules(i)
+        if (rule.compiledRegex.matches(path)) {
+          best = index
+        }
+        i += 1
+      }
+
+      best
+    }
+  }
+
+  private class Node {
+    val children = mutable.HashMap.empty[Char, Node]
+
+    var ruleIndex: Int = Int.MaxValue
+
+    def add(prefix: String, length: Int, index: Int): Unit = {
+      var node = this
+      var i = 0
+      while (i < length) {
+        node = node.children.getOrElseUpdate(prefix.charAt(i), new Node)
+        i += 1
+      }
+      node.ruleIndex = Math.min(node.ruleIndex, index)
+    }
+
+    def find(path: String): Int = {
+      val lastTerminator = lastLineTerminator(path)
+      var best = Int.MaxValue
+      var node = this
+      var i = 0
+      while (node != null) {
+        if (node.ruleIndex < best && lastTerminator < i) {
+          best = node.ruleIndex
+        }
+        node = if (i < path.length) node.children.getOrElse(path.charAt(i), null) else null
+        i += 1
+      }
+      best
+    }
+  }
+}
@@ -9,10 +9,12 @@ import org.pac4j.play.context.PlayFrameworkParameters
 import org.pac4j.play.filters.SecurityFilter._
 import org.pac4j.play.java.SecureAction
 import org.pac4j.play.result.PlayWebContextResultHolder
+import org.pac4j.play.store.NearCache
 import play.api.mvc._
 import play.api.{Configuration, Logger}
 import play.mvc
 
+import java.time.Duration
 import javax.inject.{Inject, Singleton}
 import scala.jdk.FutureConverters._
 import scala.concurrent.{ExecutionContext, Future}
@@ -28,6 +30,7 @@ import scala.util.matching.Regex
   *
   * For each regex key, there are three subkeys: `clients`, `authorizers` and `matchers`. Here you can define the
   * correct values, like you would supply to the `SecureAction` method in controllers.
+  * The `pathOnly` subkey can be set to `true` so that the rule is matched against the path only, without the query string.
   *
   * Rules are traversed and applied from top to bottom. The first matching rule will define which clients, authorizers and matchers
   * are used. When not provided, the value will be `null`.
@@ -56,6 +59,11 @@ import scala.util.matching.Regex
   *   }}
   * ]
   * }}}
+  *
+  * The rules resolved for the most recent paths are cached in a bounded concurrent cache: its size is defined by
+  * `pac4j.security.ruleCache.maxSize` (10000 by default, 0 to disable it). When all the rules are `pathOnly`,
+  * the cache key is the path only.
+  *
   * @author Hugo Valk
   * @since 2.1.0
   */
@@ -66,10 +74,22 @@ class SecurityFilter @Inject()(configuration: Configuration, config: Config)
 
   private val rules: Seq[Rule] = loadRules(configuration)
 
+  private val ruleMatcher = new RuleMatcher(rules)
+
+  private val queryStringMatched = rules.exists(!_.pathOnly)
+
+  private val securityAction = new SecureAction(config)
+
+  private[filters] val ruleCache: Option[NearCache[List[RuleData]]] = {
+    val maxSize = configuration.getOptional[Int]("pac4j.security.ruleCache.maxSize").getOrElse(DefaultRuleCacheSize)
+    // the rules never change, so the entries only leave the cache when evicted
+    if (maxSize > 0) Some(new NearCache[List[RuleData]](maxSize, Duration.ofNanos(Long.MaxValue))) else None
+  }
+
   override def apply(nextFilter: RequestHeader => Future[play.api.mvc.Result])
                     (request: RequestHeader): Future[play.api.mvc.Result] = {
-    findRule(request).map(_.data) match {
-      case Some(rule :: remainingRules) =>
+    resolveRuleData(request) match {
+      case rule :: remainingRules =>
         log.debug(s"Authentication needed for ${request.uri}")
         proceedRuleLogic(nextFilter, request, rule, remainingRules)
 
@@ -90,7 +110,6 @@ class SecurityFilter @Inject()(configuration: Configuration, config: Config)
 
     val parameters = new PlayFrameworkParameters(request)
     val webContext = config.getWebContextFactory().newContext(parameters).asInstanceOf[PlayWebContext]
-    val securityAction = new SecureAction(config)
 
     def checkSecurity(request: RequestHeader, rule: RuleData, remainingRules: Seq[RuleData]): Future[Result] =
       securityAction
@@ -121,26 +140,33 @@ class SecurityFilter @Inject()(configuration: Configuration, config: Config)
     checkSecurity(request, rule, remainingRules).andThen { case Failure(ex) => log.error("Exception during authentication procedure", ex) }
   }
 
-  private def findRule(request: RequestHeader): Option[Rule] = {
-    val pathNormalized = getNormalizedPath(request)
-    rules.find(rule => rule.compiledRegex.matches(pathNormalized))
-  }
-
-  private def getNormalizedPath(request: RequestHeader): String = {
-    val pathPart = removeMultipleSlashed(request.path)
-    val queryPart =
-      if (CommonHelper.isBlank(request.rawQueryString)) ""
-      else s"?${request.rawQueryString}"
-
-    pathPart + queryPart
+  private def resolveRuleData(request: RequestHeader): List[RuleData] = {
+    val path = removeMultipleSlashes(request.path)
+    val queryString = if (queryStringMatched) request.rawQueryString else ""
+    ruleCache match {
+      case Some(cache) =>
+        val key = if (CommonHelper.isBlank(queryString)) path else s"$path?$queryString"
+        // the unprotected paths are cached as well, with no rule data
+        val cached = cache.get(key)
+        if (cached != null) {
+          cached
+        } else {
+          val data = findRuleData(path, queryString)
+          cache.put(key, data)
+          data
+        }
+      case None => findRuleData(path, queryString)
+    }
   }
 
-  private def removeMultipleSlashed(path: String): String =
-    path.replaceAll("(/){2,}", "$1")
+  private def findRuleData(path: String, queryString: String): List[RuleData] =
+    ruleMatcher.find(path, queryString).map(_.data).getOrElse(Nil)
 }
 
 object SecurityFilter {
-  private[filters] case class Rule(pathRegex: String, data: List[RuleData]) {
+  private val DefaultRuleCacheSize = 10000
+
+  private[filters] case class Rule(pathRegex: String, data: List[RuleData], pathOnly: Boolean = false) {
     val compiledRegex = pathRegex.r
 
     def mergeData(other: Rule) = this.copy(data = this.data ++ other.data)
@@ -155,17 +181,43 @@ object SecurityFilter {
       // coalesce adjacent rules with the exact same path
       .foldLeft(List.empty[Rule]) {
         case (Nil, rule) => List(rule)
-        case (head :: tail, rule) if head.pathRegex == rule.pathRegex => head.mergeData(rule) :: tail
+        case (head :: tail, rule) if head.pathRegex == rule.pathRegex && head.pathOnly == rule.pathOnly =>
+          head.mergeData(rule) :: tail
         case (list, rule) => rule :: list
       }
       .reverse
   }
 
+  /**
+    * Collapse the sequences of slashes in a single pass, returning the path itself when there is none.
+    */
+  private[filters]
+  def removeMultipleSlashes(path: String): String = {
+    val first = path.indexOf("//")
+    if (first < 0) {
+      path
+    } else {
+      val builder = new java.lang.StringBuilder(path.length - 1)
+      builder.append(path, 0, first + 1)
+      var i = first + 2
+      while (i < path.length) {
+        val c = path.charAt(i)
+        if (c != '/' || path.charAt(i - 1) != '/') {
+          builder.append(c)
+        }
+        i += 1
+      }
+      builder.toString
+    }
+  }
+
   private def convertConfToRule(conf: Configuration): Rule = {
     val path = conf.subKeys.head
 
+    val ruleConf = conf.getOptional[Configuration](s""""$path"""")
+
     val ruleData: Option[RuleData] =
-      conf.getOptional[Configuration](s""""$path"""").flatMap { c =>
+      ruleConf.flatMap { c =>
 
         val clients = c.getOptional[String]("clients").orNull
         val authorizers = c.getOptional[String]("authorizers").orNull
@@ -178,6 +230,8 @@ object SecurityFilter {
         }
       }
 
-    Rule(path.replace("\"", ""), ruleData.toList)
+    val pathOnly = ruleConf.flatMap(_.getOptional[Boolean]("pathOnly")).getOrElse(false)
+
+    Rule(path.replace("\"", ""), ruleData.toList, pathOnly)
   }
 }
@@ -4,10 +4,17 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.mockito.ArgumentCaptor;
+import org.pac4j.core.context.Cookie;
 import org.pac4j.core.util.TestsConstants;
 
+import play.libs.typedmap.TypedMap;
+import play.mvc.Http;
 import play.mvc.Http.Request;
 
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -71,4 +78,153 @@ public final class PlayWebContextTests implements TestsConstants {
 
         assertEquals(443, webContext.getServerPort());
     }
+
+    @Test
+    public void testRequestParametersParsedOnce() {
+        final Http.RequestBody body = mock(Http.RequestBody.class);
+        when(body.asFormUrlEncoded()).thenReturn(Map.of(KEY, new String[] {VALUE}, NAME, new String[] {VALUE}));
+        when(requestMock.hasBody()).thenReturn(true);
+        when(requestMock.body()).thenReturn(body);
+        when(requestMock.queryString(anyString())).thenReturn(Optional.empty());
+        when(requestMock.queryString(NAME)).thenReturn(Optional.of(CLIENT_NAME));
+        when(requestMock.queryString()).thenReturn(Map.of(NAME, new String[] {CLIENT_NAME}));
+
+        assertEquals(Optional.of(VALUE), webContext.getRequestParameter(KEY));
+        assertEquals(Optional.of(CLIENT_NAME), webContext.getRequestParameter(NAME));
+        assertFalse(webContext.getRequestParameter(ID).isPresent());
+        final Map<String, String[]> parameters = webContext.getRequestParameters();
+        assertEquals(2, parameters.size());
+        assertEquals(CLIENT_NAME, parameters.get(NAME)[0]);
+        assertSame(parameters, webContext.getRequestParameters());
+        assertThrows(UnsupportedOperationException.class, () -> parameters.remove(KEY));
+        verify(body, times(1)).asFormUrlEncoded();
+    }
+
+    @Test
+    public void testRequestAttributesAttachedOnSupplement() {
+        when(requestMock.attrs()).thenReturn(TypedMap.empty());
+        when(requestMock.session()).thenReturn(new Http.Session(new HashMap<>()));
+        final PlayWebContext context = new PlayWebContext(requestMock);
+
+        assertFalse(context.getRequestAttribute(KEY).isPresent());
+        context.setRequestAttribute(KEY, VALUE);
+        context.setRequestAttribute(NAME, VALUE);
+        assertEquals(Optional.of(VALUE), context.getRequestAttribute(KEY));
+        verify(requestMock, never()).addAttr(any(), any());
+
+        final Request newRequest = mock(Request.class);
+        when(newRequest.withAttrs(any())).thenReturn(newRequest);
+        when(newRequest.addAttr(any(), any())).thenReturn(newRequest);
+        context.supplementRequest(newRequest);
+        final ArgumentCaptor<TypedMap> attrs = ArgumentCaptor.forClass(TypedMap.class);
+        verify(newRequest).withAttrs(attrs.capture());
+        final Map<String, Object> attributes = attrs.getValue().get(PlayWebContext.PAC4J_REQUEST_ATTRIBUTES);
+        assertEquals(VALUE, attributes.get(KEY));
+        assertEquals(VALUE, attributes.get(NAME));
+    }
+
+    @Test
+    public void testIpv6Host() {
+        when(requestMock.secure()).thenReturn(true);
+        when(requestMock.host()).thenReturn("[::1]:8443");
+
+        assertEquals("[::1]", webContext.getServerName());
+        assertEquals(8443, webContext.getServerPort());
+
+        final PlayWebContext context = new PlayWebContext(requestMock);
+        when(requestMock.host()).thenReturn("[::1]");
+        assertEquals("[::1]", context.getServerName());
+        assertEquals(443, context.getServerPort());
+    }
+
+    @Test
+    public void testHostParsedOnce() {
+        when(requestMock.secure()).thenReturn(false);
+        when(requestMock.host()).thenReturn(domainWithoutPort + ":9000");
+        when(requestMock.uri()).thenReturn("/path?key=value");
+
+        assertEquals("http://" + domainWithoutPort + ":9000/path?key=value", webContext.getFullRequestURL());
+        assertEquals(domainWithoutPort, webContext.getServerName());
+        assertEquals(9000, webContext.getServerPort());
+        assertEquals("http", webContext.getScheme());
+        assertSame(webContext.getFullRequestURL(), webContext.getFullRequestURL());
+        verify(requestMock, times(1)).host();
+    }
+
+    @Test
+    public void testForwardedHeaders() {
+        when(requestMock.secure()).thenReturn(false);
+        when(requestMock.host()).thenReturn("localhost:9000");
+        when(requestMock.uri()).thenReturn("/path");
+        when(requestMock.header(anyString())).thenReturn(Optional.empty());
+        when(requestMock.header("X-Forwarded-Proto")).thenReturn(Optional.of("https, http"));
+        when(requestMock.header("X-Forwarded-Host")).thenReturn(Optional.of(domainWithoutPort));
+        when(requestMock.header("X-Forwarded-Port")).thenReturn(Optional.of("8443"));
+
+        assertEquals(9000, webContext.getServerPort());
+
+        final PlayWebContext context = new PlayWebContext(requestMock);
+        context.setTrustForwardedHeaders(true);
+        assertTrue(context.isSecure());
+        assertEquals(domainWithoutPort, context.getServerName());
+        assertEquals(8443, context.getServerPort());
+        assertEquals("https://" + domainWithoutPort + ":8443/path", context.getFullRequestURL());
+    }
+
+    @Test
+    public void testForwardedPortReplacesHostPort() {
+        when(requestMock.secure()).thenReturn(false);
+        when(requestMock.host()).thenReturn("localhost:9000");
+        when(requestMock.uri()).thenReturn("/path");
+        when(requestMock.header(anyString())).thenReturn(Optional.empty());
+        when(requestMock.header("X-Forwarded-Proto")).thenReturn(Optional.of("https"));
+        when(requestMock.header("X-Forwarded-Host")).thenReturn(Optional.of(domainWithoutPort + ":8080"));
+        when(requestMock.header("X-Forwarded-Port")).thenReturn(Optional.of("443"));
+
+        webContext.setTrustForwardedHeaders(true);
+        assertEquals(domainWithoutPort, webContext.getServerName());
+        assertEquals(443, webContext.getServerPort());
+        assertEquals("https://" + domainWithoutPort + "/path", webContext.getFullRequestURL());
+
+        final PlayWebContext context = new PlayWebContext(requestMock);
+        context.setTrustForwardedHeaders(true);
+        when(requestMock.header("X-Forwarded-Host")).thenReturn(Optional.empty());
+        when(requestMock.header("X-Forwarded-Port")).thenReturn(Optional.of("8443"));
+        assertEquals("localhost", context.getServerName());
+        assertEquals(8443, context.getServerPort());
+        assertEquals("https://localhost:8443/path", context.getFullRequestURL());
+    }
+
+    @Test
+    public void testLazyRequestCookies() {
+        final Http.Cookie cookie1 = spy(Http.Cookie.builder(KEY, VALUE).withPath("/").build());
+        final Http.Cookie cookie2 = spy(Http.Cookie.builder(NAME, VALUE).withPath("/").build());
+        final List<Http.Cookie> httpCookies = List.of(cookie1, cookie2);
+        final AtomicInteger iterations = new AtomicInteger();
+        when(requestMock.cookies()).thenReturn(new Http.Cookies() {
+            @Override
+            public Optional<Http.Cookie> get(final String name) {
+                return httpCookies.stream().filter(cookie -> cookie.name().equals(name)).findFirst();
+            }
+
+            @Override
+            public Iterator<Http.Cookie> iterator() {
+                iterations.incrementAndGet();
+                return httpCookies.iterator();
+            }
+        });
+
+        final Cookie cookie = webContext.getRequestCookie(NAME).get();
+        assertEquals(VALUE, cookie.getValue());
+        assertFalse(webContext.getRequestCookie(ID).isPresent());
+        verify(cookie1, never()).value();
+        assertEquals(0, iterations.get());
+
+        final Collection<Cookie> cookies = webContext.getRequestCookies();
+        assertEquals(2, cookies.size());
+        assertSame(cookie, new ArrayList<>(cookies).get(1));
+        assertSame(cookies, webContext.getRequestCookies());
+        verify(cookie2, times(1)).value();
+        assertEquals(1, iterations.get());
+    }
 }
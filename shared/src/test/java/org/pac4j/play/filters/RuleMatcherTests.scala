@@ -0,0 +1,73 @@
+package org.pac4j.play.filters
+
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.BlockJUnit4ClassRunner
+import org.pac4j.play.filters.SecurityFilter.Rule
+import org.scalatest.matchers.should.Matchers._
+
+/**
+  * Tests the [[RuleMatcher]].
+  *
+  * @since 13.0.4
+  */
+@RunWith(classOf[BlockJUnit4ClassRunner])
+class RuleMatcherTests {
+
+  private val rules = Seq(
+    Rule("/login.html", Nil),
+    Rule("/admin/(users|groups)/[0-9]+", Nil),
+    Rule("/admin/.*", Nil),
+    Rule("/api/v1/.*", Nil),
+    Rule("/api/.*", Nil),
+    Rule("/api/v1/public", Nil),
+    Rule("/(a+)/\\1", Nil),
+    Rule("/callback.*", Nil),
+    Rule("/assets/[^?]*\\.css", Nil),
+    Rule("/assets/.*", Nil),
+    Rule("/login.html", Nil)
+  )
+
+  private val paths = Seq(
+    "", "/", "/login.html", "/login.htm", "/login.html?x=1", "/admin", "/admin/", "/admin/users/12", "/admin/users/x",
+    "/api", "/api/", "/api/v1/public", "/api/v1/", "/api/v2/test", "/aa/aa", "/aa/a", "/callback", "/callback?client_name=c",
+    "/assets/main.css", "/assets/main.css?v=1", "/assets/img.png", "/api/a\nb", "/api/a\n", "/other"
+  )
+
+  @Test
+  def testSameResultAsLinearScan(): Unit = {
+    val matcher = new RuleMatcher(rules)
+    paths.foreach { path =>
+      val expected = rules.find(_.compiledRegex.matches(path))
+      withClue(path) {
+        matcher.find(path).map(rules.indexOf(_)) shouldBe expected.map(rules.indexOf(_))
+      }
+    }
+  }
+
+  @Test
+  def testFirstMatchWins(): Unit = {
+    val matcher = new RuleMatcher(Seq(Rule("/api/v1/.*", Nil), Rule("/api/.*", Nil), Rule(".*", Nil)))
+    matcher.find("/api/v1/public").map(_.pathRegex) shouldBe Some("/api/v1/.*")
+    matcher.find("/api/v2").map(_.pathRegex) shouldBe Some("/api/.*")
+    matcher.find("/other").map(_.pathRegex) shouldBe Some(".*")
+
+    val regexFirst = new RuleMatcher(Seq(Rule("/api/[a-z]+", Nil), Rule("/api/.*", Nil)))
+    regexFirst.find("/api/test").map(_.pathRegex) shouldBe Some("/api/[a-z]+")
+    regexFirst.find("/api/1").map(_.pathRegex) shouldBe Some("/api/.*")
+  }
+
+  @Test
+  def testPathOnly(): Unit = {
+    val matcher = new RuleMatcher(Seq(Rule("/login.html", Nil, pathOnly = true), Rule("/api", Nil), Rule("/api.*", Nil, pathOnly = true)))
+    matcher.find("/login.html", "key=value").map(_.pathRegex) shouldBe Some("/login.html")
+    matcher.find("/api", "").map(_.pathRegex) shouldBe Some("/api")
+    matcher.find("/api", "key=value").map(_.pathRegex) shouldBe Some("/api.*")
+    matcher.find("/other", "key=value") shouldBe None
+  }
+
+  @Test
+  def testNoRule(): Unit = {
+    new RuleMatcher(Seq()).find("/") shouldBe None
+  }
+}
@@ -38,7 +38,8 @@ class SecurityFilterTests extends ScalaFutures with Results {
       Rule("/path_anonymous", List(RuleData("AnonymousClient", null, null))),
       Rule("/path_secure_1", List(RuleData("client1,client2", null, null))),
       Rule("/path_secure_3", List(RuleData(null, "authorizer1,authorizer2", null))),
-      Rule("/path_secure_4", List(RuleData("client1,client2", "authorizer1,authorizer2", "matcher1,matcher2")))
+      Rule("/path_secure_4", List(RuleData("client1,client2", "authorizer1,authorizer2", "matcher1,matcher2"))),
+      Rule("/path_secure_5/.*", List(RuleData("client1", null, null)), pathOnly = true)
     )
   }
 
@@ -122,6 +123,73 @@ class SecurityFilterTests extends ScalaFutures with Results {
     status(tryFilterApply(securityFilter, "/path_secure/deeper", POST)) shouldBe 401
   }
 
+  @Test
+  def testThatSecurityFilterCachesTheResolvedRules(): Unit = {
+    implicit val ec = scala.concurrent.ExecutionContext.global
+    implicit val as = ActorSystem("text-actor-system")
+    implicit val mat: ActorMaterializer = ActorMaterializer()
+
+    val securityFilter = prepareSecurityFilter(
+      """
+        |pac4j.security.ruleCache.maxSize = 1
+        |pac4j.security.rules = [
+        |  {
+        |    "/path_secure/.*" = {
+        |      clients = "client1"
+        |    }
+        |  }
+        |]
+      """.stripMargin
+    )
+
+    (1 to 2).foreach { _ =>
+      status(tryFilterApply(securityFilter, "/path_secure/1", GET)) shouldBe 401
+      status(tryFilterApply(securityFilter, "/path_secure/1", GET)) shouldBe 401
+      status(tryFilterApply(securityFilter, "/other", GET)) shouldBe 200
+      status(tryFilterApply(securityFilter, "/other", GET)) shouldBe 200
+    }
+    val cache = securityFilter.ruleCache.get
+    cache.getHits shouldBe 4
+    cache.getMisses shouldBe 4
+    cache.getEvictions shouldBe 3
+    cache.size shouldBe 1
+  }
+
+  @Test
+  def testThatPathOnlyRulesIgnoreTheQueryString(): Unit = {
+    implicit val ec = scala.concurrent.ExecutionContext.global
+    implicit val as = ActorSystem("text-actor-system")
+    implicit val mat: ActorMaterializer = ActorMaterializer()
+
+    def rules(pathOnly: Boolean) =
+      s"""
+        |pac4j.security.rules = [
+        |  {
+        |    "/path_secure" = {
+        |      clients = "client1"
+        |      pathOnly = $pathOnly
+        |    }
+        |  }
+        |]
+      """.stripMargin
+
+    status(tryFilterApply(prepareSecurityFilter(rules(false)), "/path_secure?key=value", GET)) shouldBe 200
+    val securityFilter = prepareSecurityFilter(rules(true))
+    status(tryFilterApply(securityFilter, "/path_secure?key=value", GET)) shouldBe 401
+    status(tryFilterApply(securityFilter, "/path_secure?key=other", GET)) shouldBe 401
+    status(tryFilterApply(securityFilter, "/path_secure", GET)) shouldBe 401
+    // the query string is not part of the cache key
+    securityFilter.ruleCache.get.getMisses shouldBe 1
+  }
+
+  @Test
+  def testRemoveMultipleSlashes(): Unit = {
+    val path = "/path/secure"
+    SecurityFilter.removeMultipleSlashes(path) should be theSameInstanceAs path
+    SecurityFilter.removeMultipleSlashes("//path///secure//") shouldBe "/path/secure/"
+    SecurityFilter.removeMultipleSlashes("//") shouldBe "/"
+  }
+
   private def tryFilterApply(securityFilter: SecurityFilter, path: String, method: String): Future[Result] = {
       val nextFilter = (_: RequestHeader) => Future.successful(Ok("ok"))
       val testRequest: RequestHeader = FakeRequest(method, path)
@@ -0,0 +1,96 @@
+package org.pac4j.play.java;
+
+import org.junit.Test;
+import org.pac4j.core.client.Clients;
+import org.pac4j.core.config.Config;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.play.http.PlayHttpActionAdapter;
+import play.libs.concurrent.HttpExecutionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the {@link SecureAction}.
+ *
+ * @since 13.0.4
+ */
+public final class SecureActionTests implements TestsConstants {
+
+    @Test
+    public void testConfigSecurityReused() {
+        final Config config = new Config();
+        config.setHttpActionAdapter(PlayHttpActionAdapter.INSTANCE);
+        final SecureAction action = new SecureAction(config);
+
+        final Config configSecurity = action.getConfigSecurity();
+        assertNotSame(config, configSecurity);
+        assertNotSame(PlayHttpActionAdapter.INSTANCE, configSecurity.getHttpActionAdapter());
+        assertSame(configSecurity, action.getConfigSecurity());
+    }
+
+    @Test
+    public void testConfigSecuritySharedByConfig() {
+        final Config config1 = new Config();
+        config1.setHttpActionAdapter(PlayHttpActionAdapter.INSTANCE);
+        final Config config2 = new Config();
+        config2.setHttpActionAdapter(PlayHttpActionAdapter.INSTANCE);
+
+        final Config configSecurity1 = new SecureAction(config1).getConfigSecurity();
+        final Config configSecurity2 = new SecureAction(config2).getConfigSecurity();
+        assertNotSame(configSecurity1, configSecurity2);
+        // a new action is built for each request
+        assertSame(configSecurity1, new SecureAction(config1).getConfigSecurity());
+        assertSame(configSecurity2, new SecureAction(config2).getConfigSecurity());
+    }
+
+    @Test
+    public void testConfigSecurityDerivedOnChange() {
+        final Config config = new Config();
+        config.setHttpActionAdapter(PlayHttpActionAdapter.INSTANCE);
+        final SecureAction action = new SecureAction(config);
+
+        final Config configSecurity = action.getConfigSecurity();
+        final Clients clients = new Clients();
+        config.setClients(clients);
+        final Config newConfigSecurity = action.getConfigSecurity();
+        assertNotSame(configSecurity, newConfigSecurity);
+        assertSame(clients, newConfigSecurity.getClients());
+    }
+
+    @Test
+    public void testConfigSecurityDerivedOnAdapterChange() {
+        final Config config = new Config();
+        config.setHttpActionAdapter(PlayHttpActionAdapter.INSTANCE);
+        final SecureAction action = new SecureAction(config);
+
+        final Config configSecurity = action.getConfigSecurity();
+        config.setHttpActionAdapter(new PlayHttpActionAdapter());
+        assertNotSame(configSecurity, action.getConfigSecurity());
+    }
+
+    @Test
+    public void testContinueInHttpExecutionContext() {
+        final SecureAction action = new SecureAction(new Config());
+        final List<Runnable> tasks = new ArrayList<>();
+        final Executor executor = tasks::add;
+        action.ec = mock(HttpExecutionContext.class);
+        when(action.ec.current()).thenReturn(executor);
+
+        final CompletableFuture<String> read = new CompletableFuture<>();
+        final CompletableFuture<String> result =
+            action.thenComposeInContext(read, v -> CompletableFuture.completedFuture(v + VALUE)).toCompletableFuture();
+        // the cache thread completing the read does not run the continuation
+        read.complete(KEY);
+        assertFalse(result.isDone());
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+        assertEquals(KEY + VALUE, result.join());
+    }
+}
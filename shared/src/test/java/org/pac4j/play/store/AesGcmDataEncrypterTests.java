@@ -0,0 +1,81 @@
+package org.pac4j.play.store;
+
+import org.junit.Test;
+import org.pac4j.core.util.TestsConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the {@link AesGcmDataEncrypter}.
+ *
+ * @since 13.0.4
+ */
+public final class AesGcmDataEncrypterTests implements TestsConstants {
+
+    private static final byte[] KEY1 = newKey((byte) 1);
+
+    private static final byte[] KEY2 = newKey((byte) 2);
+
+    private static byte[] newKey(final byte value) {
+        final byte[] key = new byte[32];
+        Arrays.fill(key, value);
+        return key;
+    }
+
+    private final AesGcmDataEncrypter encrypter = new AesGcmDataEncrypter(KEY1);
+
+    @Test
+    public void testOK() {
+        final byte[] encrypted = encrypter.encrypt(VALUE.getBytes(StandardCharsets.UTF_8));
+        final byte[] decrypted = encrypter.decrypt(encrypted);
+        assertEquals(VALUE, new String(decrypted, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRandomIv() {
+        final byte[] bytes = VALUE.getBytes(StandardCharsets.UTF_8);
+        assertFalse(Arrays.equals(encrypter.encrypt(bytes), encrypter.encrypt(bytes)));
+    }
+
+    @Test
+    public void testSupportsNull() {
+        assertNull(encrypter.encrypt(null));
+        assertNull(encrypter.decrypt(null));
+    }
+
+    @Test
+    public void testOtherNode() {
+        final byte[] encrypted = encrypter.encrypt(VALUE.getBytes(StandardCharsets.UTF_8));
+        final byte[] decrypted = new AesGcmDataEncrypter(KEY1).decrypt(encrypted);
+        assertEquals(VALUE, new String(decrypted, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testKeyRotation() {
+        final AesGcmDataEncrypter oldEncrypter = new AesGcmDataEncrypter(Map.of(1, KEY1), 1);
+        final AesGcmDataEncrypter newEncrypter = new AesGcmDataEncrypter(Map.of(1, KEY1, 2, KEY2), 2);
+
+        final byte[] oldEncrypted = oldEncrypter.encrypt(VALUE.getBytes(StandardCharsets.UTF_8));
+        assertEquals(VALUE, new String(newEncrypter.decrypt(oldEncrypted), StandardCharsets.UTF_8));
+
+        final byte[] newEncrypted = newEncrypter.encrypt(VALUE.getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, newEncrypted[1]);
+        assertThrows(RuntimeException.class, () -> oldEncrypter.decrypt(newEncrypted));
+    }
+
+    @Test
+    public void testTamperedData() {
+        final byte[] encrypted = encrypter.encrypt(VALUE.getBytes(StandardCharsets.UTF_8));
+        encrypted[encrypted.length - 1] ^= 1;
+        assertThrows(RuntimeException.class, () -> encrypter.decrypt(encrypted));
+    }
+
+    @Test
+    public void testBadActiveKey() {
+        assertThrows(IllegalArgumentException.class, () -> new AesGcmDataEncrypter(Map.of(1, KEY1), 2));
+    }
+}
@@ -0,0 +1,142 @@
+package org.pac4j.play.store;
+
+import org.junit.Test;
+import org.pac4j.core.profile.CommonProfile;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.core.util.serializer.JsonSerializer;
+
+import java.net.URI;
+import java.sql.Timestamp;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link BinarySessionSerializer}.
+ *
+ * @since 13.0.4
+ */
+public final class BinarySessionSerializerTests implements TestsConstants {
+
+    // a map serialized with the version 1 of the format: it must remain readable by the next versions
+    private static final String VERSION1_DATA = "b5010a0601036b6579010576616c756501046c6f6e6705090103696e7404d8040104626f"
+        + "6f6c0201046461746507d00f01046c6973740802010161010162";
+
+    private final BinarySessionSerializer serializer = new BinarySessionSerializer();
+
+    private static Map<String, Object> buildSession() {
+        final CommonProfile profile = new CommonProfile();
+        profile.setId(ID);
+        profile.setClientName(CLIENT_NAME);
+        profile.addRole(KEY);
+        profile.addAttribute(NAME, VALUE);
+        profile.addAttribute(KEY, new ArrayList<>(List.of(VALUE, NAME)));
+        profile.addAuthenticationAttribute(KEY, 1.5d);
+        final LinkedHashMap<String, CommonProfile> profiles = new LinkedHashMap<>();
+        profiles.put(CLIENT_NAME, profile);
+
+        final Map<String, Object> session = new LinkedHashMap<>();
+        session.put(Pac4jConstants.USER_PROFILES, profiles);
+        session.put(Pac4jConstants.CSRF_TOKEN, VALUE);
+        session.put(Pac4jConstants.CSRF_TOKEN_EXPIRATION_DATE, 1000L);
+        return session;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Map<String, Object> session = buildSession();
+        final Map<String, Object> result = (Map<String, Object>) serializer.deserializeFromBytes(serializer.serializeToBytes(session));
+        assertEquals(VALUE, result.get(Pac4jConstants.CSRF_TOKEN));
+        assertEquals(1000L, result.get(Pac4jConstants.CSRF_TOKEN_EXPIRATION_DATE));
+
+        final CommonProfile profile = (CommonProfile) ((Map<String, Object>) result.get(Pac4jConstants.USER_PROFILES)).get(CLIENT_NAME);
+        assertEquals(ID, profile.getId());
+        assertEquals(CLIENT_NAME, profile.getClientName());
+        assertEquals(Set.of(KEY), profile.getRoles());
+        assertEquals(VALUE, profile.getAttribute(NAME));
+        assertEquals(List.of(VALUE, NAME), profile.getAttribute(KEY));
+        assertEquals(1.5d, profile.getAuthenticationAttributes().get(KEY));
+    }
+
+    @Test
+    public void testSmallerThanJson() {
+        final Map<String, Object> session = buildSession();
+        assertTrue(serializer.serializeToBytes(session).length < new JsonSerializer().serializeToBytes(session).length);
+    }
+
+    @Test
+    public void testReadJson() {
+        final Map<String, Object> session = new HashMap<>();
+        session.put(KEY, VALUE);
+        final JsonSerializer jsonSerializer = new JsonSerializer();
+        assertEquals(session, serializer.deserializeFromBytes(jsonSerializer.serializeToBytes(session)));
+        assertEquals(session, serializer.deserializeFromString(jsonSerializer.serializeToString(session)));
+    }
+
+    @Test
+    public void testFallbackForProfileWithFields() {
+        final ExtendedProfile profile = new ExtendedProfile();
+        profile.setId(ID);
+        profile.setExtra(VALUE);
+        final ExtendedProfile result = (ExtendedProfile) serializer.deserializeFromBytes(serializer.serializeToBytes(profile));
+        assertEquals(ID, result.getId());
+        assertEquals(VALUE, result.getExtra());
+    }
+
+    @Test
+    public void testReadVersion1() {
+        final byte[] bytes = HexFormat.of().parseHex(VERSION1_DATA);
+        final Map<String, Object> result = (Map<String, Object>) serializer.deserializeFromBytes(bytes);
+        assertEquals(List.of("key", "long", "int", "bool", "date", "list"), new ArrayList<>(result.keySet()));
+        assertEquals("value", result.get("key"));
+        assertEquals(-5L, result.get("long"));
+        assertEquals(300, result.get("int"));
+        assertEquals(Boolean.TRUE, result.get("bool"));
+        assertEquals(new Date(1000L), result.get("date"));
+        assertEquals(List.of("a", "b"), result.get("list"));
+    }
+
+    @Test
+    public void testRoundTripUriAndLocale() throws Exception {
+        final CommonProfile profile = new CommonProfile();
+        profile.setId(ID);
+        profile.addAttribute("profile_url", new URI(PAC4J_URL));
+        profile.addAttribute("locale", Locale.CANADA_FRENCH);
+
+        final CommonProfile result = (CommonProfile) serializer.deserializeFromBytes(serializer.serializeToBytes(profile));
+        assertEquals(new URI(PAC4J_URL), result.getProfileUrl());
+        assertEquals(Locale.CANADA_FRENCH, result.getLocale());
+    }
+
+    @Test
+    public void testRoundTripDateSubclass() {
+        final Timestamp timestamp = new Timestamp(1000L);
+        timestamp.setNanos(123_456_789);
+        final java.sql.Date sqlDate = new java.sql.Date(2000L);
+        final List<Object> dates = List.of(timestamp, sqlDate, new Date(3000L));
+
+        final List<Object> result = (List<Object>) serializer.deserializeFromBytes(serializer.serializeToBytes(dates));
+        assertEquals(Timestamp.class, result.get(0).getClass());
+        assertEquals(timestamp, result.get(0));
+        assertEquals(java.sql.Date.class, result.get(1).getClass());
+        assertEquals(sqlDate, result.get(1));
+        assertEquals(Date.class, result.get(2).getClass());
+        assertEquals(new Date(3000L), result.get(2));
+    }
+
+    public static class ExtendedProfile extends CommonProfile {
+
+        private static final long serialVersionUID = 1L;
+
+        private String extra;
+
+        public String getExtra() {
+            return extra;
+        }
+
+        public void setExtra(final String extra) {
+            this.extra = extra;
+        }
+    }
+}
@@ -3,8 +3,13 @@ package org.pac4j.play.store;
 import org.junit.Test;
 import org.pac4j.core.util.TestsConstants;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -49,4 +54,31 @@ public class JdkAesDataEncrypterTests implements TestsConstants {
         assertNull(encrypter.encrypt(null));
         assertNull(encrypter.decrypt(null));
     }
+
+    @Test
+    public void testReuseCiphers() {
+        for (int i = 0; i < 10; i++) {
+            final String value = VALUE + i;
+            final byte[] encrypted = encrypter.encrypt(value.getBytes(StandardCharsets.UTF_8));
+            assertEquals(value, new String(encrypter.decrypt(encrypted), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testConcurrentUsage() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String value = VALUE + i;
+                results.add(executor.submit(() ->
+                    new String(encrypter.decrypt(encrypter.encrypt(value.getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(VALUE + i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package org.pac4j.play.store;
+
+import org.junit.Test;
+import org.pac4j.core.util.TestsConstants;
+import play.cache.SyncCacheApi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link LoopbackInvalidationBus}.
+ *
+ * @since 13.0.4
+ */
+public final class LoopbackInvalidationBusTests implements TestsConstants {
+
+    @Test
+    public void testPublish() {
+        final LoopbackInvalidationBus bus = new LoopbackInvalidationBus();
+        final List<Collection<String>> received = new ArrayList<>();
+        bus.subscribe(received::add);
+        bus.publish(List.of(KEY, NAME));
+        bus.publish(List.of());
+        assertEquals(List.of(List.of(KEY, NAME)), received);
+    }
+
+    @Test
+    public void testInvalidateOtherNode() {
+        final SyncCacheApi cacheApiMock = mock(SyncCacheApi.class);
+        when(cacheApiMock.get(KEY)).thenReturn(Optional.of(VALUE));
+        final LoopbackInvalidationBus bus = new LoopbackInvalidationBus();
+        final PlayCacheStore<String, String> node1 = newStore(cacheApiMock, bus);
+        final PlayCacheStore<String, String> node2 = newStore(cacheApiMock, bus);
+
+        assertEquals(Optional.of(VALUE), node1.get(KEY));
+        assertEquals(1, node1.getNearCache().size());
+
+        node2.remove(KEY);
+        assertEquals(0, node1.getNearCache().size());
+        when(cacheApiMock.get(KEY)).thenReturn(Optional.empty());
+        assertFalse(node1.get(KEY).isPresent());
+    }
+
+    private static PlayCacheStore<String, String> newStore(final SyncCacheApi cacheApi, final InvalidationBus bus) {
+        final PlayCacheStore<String, String> store = new PlayCacheStore<>(cacheApi);
+        store.setNearCache(new NearCache<>());
+        store.setInvalidationBus(bus);
+        return store;
+    }
+}
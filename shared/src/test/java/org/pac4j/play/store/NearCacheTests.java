@@ -0,0 +1,170 @@
+package org.pac4j.play.store;
+
+import org.junit.Test;
+import org.pac4j.core.util.TestsConstants;
+import play.cache.SyncCacheApi;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link NearCache}.
+ *
+ * @since 13.0.4
+ */
+public final class NearCacheTests implements TestsConstants {
+
+    @Test
+    public void testHitMiss() {
+        final NearCache<String> cache = new NearCache<>();
+        assertNull(cache.get(KEY));
+        cache.put(KEY, VALUE);
+        assertEquals(VALUE, cache.get(KEY));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        cache.invalidate(KEY);
+        assertNull(cache.get(KEY));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testLruEviction() {
+        final NearCache<String> cache = new NearCache<>(2, Duration.ofMinutes(1));
+        cache.put(KEY, VALUE);
+        cache.put(NAME, VALUE);
+        cache.get(KEY);
+        cache.put(CLIENT_NAME, VALUE);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(VALUE, cache.get(KEY));
+        assertNull(cache.get(NAME));
+    }
+
+    @Test
+    public void testBoundedUnderConcurrentAccess() throws InterruptedException {
+        final NearCache<String> cache = new NearCache<>(100, Duration.ofMinutes(1));
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t * 1_000;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    cache.put(String.valueOf(offset + i), VALUE);
+                    cache.get(String.valueOf(offset + i / 2));
+                }
+            });
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        cache.put(KEY, VALUE);
+        assertTrue(cache.size() <= 100);
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(VALUE, cache.get(KEY));
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        final NearCache<String> cache = new NearCache<>(10, Duration.ofMillis(1));
+        cache.put(KEY, VALUE);
+        Thread.sleep(10);
+        assertNull(cache.get(KEY));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testPlayCacheStore() {
+        final SyncCacheApi cacheApiMock = mock(SyncCacheApi.class);
+        when(cacheApiMock.get(KEY)).thenReturn(Optional.of(VALUE));
+        final PlayCacheStore<String, String> store = new PlayCacheStore<>(cacheApiMock);
+        store.setNearCache(new NearCache<>());
+
+        assertEquals(Optional.of(VALUE), store.get(KEY));
+        assertEquals(Optional.of(VALUE), store.get(KEY));
+        verify(cacheApiMock, times(1)).get(KEY);
+
+        store.set(KEY, NAME);
+        when(cacheApiMock.get(KEY)).thenReturn(Optional.of(NAME));
+        assertEquals(Optional.of(NAME), store.get(KEY));
+        verify(cacheApiMock, times(2)).get(KEY);
+    }
+
+    @Test
+    public void testInvalidateAfterWrite() {
+        final SyncCacheApi cacheApiMock = mock(SyncCacheApi.class);
+        when(cacheApiMock.get(KEY)).thenReturn(Optional.of(VALUE));
+        final PlayCacheStore<String, String> store = new PlayCacheStore<>(cacheApiMock);
+        store.setNearCache(new NearCache<>());
+        // a concurrent read during the write puts the previous value in the near cache
+        doAnswer(inv -> store.get(KEY)).when(cacheApiMock).set(eq(KEY), eq(NAME), anyInt());
+
+        store.set(KEY, NAME);
+        when(cacheApiMock.get(KEY)).thenReturn(Optional.of(NAME));
+        assertEquals(Optional.of(NAME), store.get(KEY));
+    }
+
+    @Test
+    public void testTouchDoesNotRestoreRemovedValue() {
+        final SyncCacheApi cacheApiMock = mock(SyncCacheApi.class);
+        final Map<String, Object> cache = new HashMap<>();
+        cache.put(KEY, VALUE);
+        doAnswer(inv -> Optional.ofNullable(cache.get(inv.<String>getArgument(0)))).when(cacheApiMock).get(anyString());
+        doAnswer(inv -> cache.put(inv.getArgument(0), inv.getArgument(1))).when(cacheApiMock).set(anyString(), any(), anyInt());
+        doAnswer(inv -> cache.remove(inv.<String>getArgument(0))).when(cacheApiMock).remove(anyString());
+        final PlayCacheStore<String, String> node1 = new PlayCacheStore<>(cacheApiMock);
+        node1.setTimeout(60);
+        node1.setNearCache(new NearCache<>());
+        final PlayCacheStore<String, String> node2 = new PlayCacheStore<>(cacheApiMock);
+        node2.setTimeout(60);
+
+        assertEquals(Optional.of(VALUE), node1.get(KEY));
+        // removed by another node, without invalidation of the near cache of the first one
+        node2.remove(KEY);
+        final Optional<String> outdatedValue = node1.get(KEY);
+        assertEquals(Optional.of(VALUE), outdatedValue);
+
+        node1.touch(KEY, outdatedValue.get());
+        assertFalse(cache.containsKey(KEY));
+        verify(cacheApiMock, never()).set(anyString(), any(), anyInt());
+    }
+
+    @Test
+    public void testInvalidationStamp() {
+        final NearCache<String> cache = new NearCache<>();
+        final long stamp = cache.stamp();
+        cache.invalidate(KEY);
+        assertFalse(cache.put(KEY, VALUE, stamp));
+        assertNull(cache.get(KEY));
+        assertEquals(0, cache.size());
+
+        assertTrue(cache.put(KEY, VALUE, cache.stamp()));
+        assertEquals(VALUE, cache.get(KEY));
+
+        final long stampBeforeClear = cache.stamp();
+        cache.invalidateAll();
+        assertFalse(cache.put(NAME, VALUE, stampBeforeClear));
+        assertNull(cache.get(NAME));
+    }
+
+    @Test
+    public void testNoOutdatedValueAfterInvalidationDuringRead() {
+        final SyncCacheApi cacheApiMock = mock(SyncCacheApi.class);
+        final PlayCacheStore<String, String> store = new PlayCacheStore<>(cacheApiMock);
+        store.setNearCache(new NearCache<>());
+        // the value is removed (and invalidated) after being read from the Play cache, before being put in the near cache
+        when(cacheApiMock.get(KEY)).thenAnswer(inv -> {
+            store.remove(KEY);
+            return Optional.of(VALUE);
+        }).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(VALUE), store.get(KEY));
+        assertEquals(0, store.getNearCache().size());
+        assertFalse(store.get(KEY).isPresent());
+        verify(cacheApiMock, times(2)).get(KEY);
+    }
+}
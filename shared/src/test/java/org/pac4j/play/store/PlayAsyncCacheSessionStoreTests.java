@@ -0,0 +1,99 @@
+package org.pac4j.play.store;
+
+import org.apache.pekko.Done;
+import org.junit.Before;
+import org.junit.Test;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.play.PlayWebContext;
+import org.pac4j.play.context.PlayContextFactory;
+import org.pac4j.play.context.PlayFrameworkParameters;
+import play.cache.AsyncCacheApi;
+import play.cache.SyncCacheApi;
+import play.mvc.Http;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link PlayAsyncCacheSessionStore}.
+ *
+ * @since 13.0.4
+ */
+public final class PlayAsyncCacheSessionStoreTests implements TestsConstants {
+
+    private static final String SESSION_ID = "mysessionid";
+
+    private AsyncCacheApi asyncCacheMock;
+
+    private SyncCacheApi syncCacheMock;
+
+    private PlayAsyncCacheSessionStore store;
+
+    @Before
+    public void setUp() {
+        asyncCacheMock = mock(AsyncCacheApi.class);
+        syncCacheMock = mock(SyncCacheApi.class);
+        when(asyncCacheMock.sync()).thenReturn(syncCacheMock);
+        doReturn(CompletableFuture.completedFuture(Done.getInstance())).when(asyncCacheMock).set(anyString(), any(), anyInt());
+        store = new PlayAsyncCacheSessionStore(asyncCacheMock);
+    }
+
+    private static PlayFrameworkParameters newParameters(final Map<String, String> session) {
+        final Http.RequestHeader request = mock(Http.RequestHeader.class);
+        when(request.session()).thenReturn(new Http.Session(session));
+        return new PlayFrameworkParameters(request);
+    }
+
+    @Test
+    public void testPreload() {
+        final Map<String, Object> data = new HashMap<>();
+        data.put(KEY, VALUE);
+        doReturn(CompletableFuture.completedFuture(Optional.of(data))).when(asyncCacheMock).get(SESSION_ID);
+        final PlayFrameworkParameters parameters = newParameters(Map.of(Pac4jConstants.SESSION_ID, SESSION_ID));
+
+        store.preload(parameters).toCompletableFuture().join();
+        final PlayWebContext context = PlayContextFactory.INSTANCE.newContext(parameters);
+        assertEquals(Optional.of(VALUE), store.get(context, KEY));
+        verify(syncCacheMock, never()).get(anyString());
+
+        store.set(context, NAME, VALUE);
+        verify(asyncCacheMock, never()).set(anyString(), any(), anyInt());
+        context.flushRequestSessionValues();
+        verify(asyncCacheMock, times(1)).set(eq(SESSION_ID), any(), eq(3600));
+        verify(syncCacheMock, never()).set(anyString(), any(), anyInt());
+    }
+
+    @Test
+    public void testPendingWrites() {
+        final CompletableFuture<Done> write = new CompletableFuture<>();
+        doReturn(write).when(asyncCacheMock).set(anyString(), any(), anyInt());
+        doReturn(CompletableFuture.completedFuture(Optional.of(new HashMap<>()))).when(asyncCacheMock).get(SESSION_ID);
+        final PlayFrameworkParameters parameters = newParameters(Map.of(Pac4jConstants.SESSION_ID, SESSION_ID));
+
+        store.preload(parameters).toCompletableFuture().join();
+        final PlayWebContext context = PlayContextFactory.INSTANCE.newContext(parameters);
+        store.set(context, NAME, VALUE);
+        context.flushRequestSessionValues();
+
+        final CompletableFuture<Void> pending = parameters.getPendingWrites().await().toCompletableFuture();
+        assertFalse(pending.isDone());
+        write.complete(Done.getInstance());
+        assertTrue(pending.isDone());
+        assertTrue(parameters.getPendingWrites().await().toCompletableFuture().isDone());
+    }
+
+    @Test
+    public void testNoSession() {
+        final PlayFrameworkParameters parameters = newParameters(new HashMap<>());
+
+        store.preload(parameters).toCompletableFuture().join();
+        assertTrue(parameters.getRequestSessionValues().isEmpty());
+        verify(asyncCacheMock, never()).get(anyString());
+    }
+}
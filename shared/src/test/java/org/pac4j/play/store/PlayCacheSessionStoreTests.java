@@ -2,13 +2,16 @@ package org.pac4j.play.store;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.pac4j.core.profile.CommonProfile;
 import org.pac4j.core.util.Pac4jConstants;
 import org.pac4j.core.util.TestsConstants;
 import org.pac4j.play.PlayWebContext;
 import play.cache.SyncCacheApi;
+import play.libs.typedmap.TypedMap;
 import play.mvc.Http;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -92,4 +95,246 @@ public final class PlayCacheSessionStoreTests implements TestsConstants {
 
         verify(cacheApiMock, times(1)).remove(SESSION_ID);
     }
+
+    @Test
+    public void testLoadOncePerRequest() {
+        final Map<String, Object> data = new HashMap<>();
+        data.put(KEY, VALUE);
+        when(cacheApiMock.get(SESSION_ID)).thenReturn(Optional.of(data));
+        final Http.RequestHeader request = mock(Http.RequestHeader.class);
+        when(request.session()).thenReturn(new Http.Session(Map.of(Pac4jConstants.SESSION_ID, SESSION_ID)));
+        final PlayWebContext webContext = new PlayWebContext(request);
+
+        assertEquals(Optional.of(VALUE), store.get(webContext, KEY));
+        assertFalse(store.get(webContext, NAME).isPresent());
+        store.set(webContext, NAME, VALUE);
+        assertEquals(Optional.of(VALUE), store.get(webContext, NAME));
+
+        verify(cacheApiMock, times(1)).get(SESSION_ID);
+        verify(cacheApiMock, times(1)).set(eq(SESSION_ID), any(), anyInt());
+    }
+
+    @Test
+    public void testWriteBack() {
+        store.setWriteBack(true);
+        final Map<String, Object> data = new HashMap<>();
+        data.put(KEY, VALUE);
+        when(cacheApiMock.get(SESSION_ID)).thenReturn(Optional.of(data));
+        final Http.RequestHeader request = mock(Http.RequestHeader.class);
+        when(request.session()).thenReturn(new Http.Session(Map.of(Pac4jConstants.SESSION_ID, SESSION_ID)));
+        final PlayWebContext webContext = new PlayWebContext(request);
+
+        store.set(webContext, NAME, VALUE);
+        store.set(webContext, CLIENT_NAME, VALUE);
+        store.set(webContext, KEY, VALUE);
+        assertEquals(Optional.of(VALUE), store.get(webContext, CLIENT_NAME));
+        verify(cacheApiMock, never()).set(any(), any(), anyInt());
+
+        webContext.flushRequestSessionValues();
+        verify(cacheApiMock, times(1)).set(eq(SESSION_ID), any(), anyInt());
+        webContext.flushRequestSessionValues();
+        verify(cacheApiMock, times(1)).set(eq(SESSION_ID), any(), anyInt());
+    }
+
+    @Test
+    public void testWriteBackReadOnly() {
+        store.setWriteBack(true);
+        when(cacheApiMock.get(SESSION_ID)).thenReturn(Optional.of(new HashMap<>()));
+        final Http.RequestHeader request = mock(Http.RequestHeader.class);
+        when(request.session()).thenReturn(new Http.Session(Map.of(Pac4jConstants.SESSION_ID, SESSION_ID)));
+        final PlayWebContext webContext = new PlayWebContext(request);
+
+        store.get(webContext, KEY);
+        webContext.flushRequestSessionValues();
+        verify(cacheApiMock, never()).set(any(), any(), anyInt());
+    }
+
+    @Test
+    public void testSlidingExpiration() {
+        store.setSlidingExpiration(true);
+        final Map<String, Object> data = new HashMap<>();
+        data.put(KEY, VALUE);
+        when(cacheApiMock.get(SESSION_ID)).thenReturn(Optional.of(data));
+        final Http.RequestHeader request = mock(Http.RequestHeader.class);
+        when(request.session()).thenReturn(new Http.Session(Map.of(Pac4jConstants.SESSION_ID, SESSION_ID)));
+
+        assertEquals(Optional.of(VALUE), store.get(new PlayWebContext(request), KEY));
+        verify(cacheApiMock, times(1)).set(SESSION_ID, data, 3600);
+        // throttled
+        assertEquals(Optional.of(VALUE), store.get(new PlayWebContext(request), KEY));
+        verify(cacheApiMock, times(1)).set(SESSION_ID, data, 3600);
+    }
+
+    @Test
+    public void testTouchWithoutTimeout() {
+        final PlayCacheStore<String, String> cacheStore = new PlayCacheStore<>(cacheApiMock);
+        when(cacheApiMock.get(KEY)).thenReturn(Optional.of(VALUE));
+        cacheStore.touch(KEY);
+        verify(cacheApiMock, never()).set(any(), any(), anyInt());
+        cacheStore.setTimeout(60);
+        cacheStore.touch(KEY);
+        cacheStore.touch(KEY);
+        verify(cacheApiMock, times(1)).set(KEY, VALUE, 60);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNearCacheValuesCopied() {
+        store.store.setNearCache(new NearCache<>());
+        final Map<String, Object> cache = inMemoryCache();
+        login("s1", ID);
+
+        final PlayWebContext context1 = newSessionContext("s1");
+        final PlayWebContext context2 = newSessionContext("s1");
+        final Map<String, CommonProfile> profiles1 =
+            (Map<String, CommonProfile>) store.get(context1, Pac4jConstants.USER_PROFILES).get();
+        final Map<String, CommonProfile> profiles2 =
+            (Map<String, CommonProfile>) store.get(context2, Pac4jConstants.USER_PROFILES).get();
+        assertNotSame(profiles1, profiles2);
+        assertNotSame(profiles1.get(CLIENT_NAME), profiles2.get(CLIENT_NAME));
+
+        profiles1.get(CLIENT_NAME).addAttribute(NAME, VALUE);
+        profiles1.remove(CLIENT_NAME);
+        assertTrue(profiles2.containsKey(CLIENT_NAME));
+        assertNull(profiles2.get(CLIENT_NAME).getAttribute(NAME));
+        assertEquals(1, ((Map<String, CommonProfile>) ((Map<String, Object>) cache.get("s1")).get(Pac4jConstants.USER_PROFILES)).size());
+    }
+
+    @Test
+    public void testNoTouchAfterWrite() {
+        final PlayCacheStore<String, String> cacheStore = new PlayCacheStore<>(cacheApiMock);
+        cacheStore.setTimeout(60);
+        cacheStore.set(KEY, VALUE);
+        cacheStore.touch(KEY, VALUE);
+        verify(cacheApiMock, times(1)).set(KEY, VALUE, 60);
+    }
+
+    private Map<String, Object> inMemoryCache() {
+        final Map<String, Object> cache = new HashMap<>();
+        doAnswer(inv -> Optional.ofNullable(cache.get(inv.<String>getArgument(0)))).when(cacheApiMock).get(anyString());
+        doAnswer(inv -> cache.put(inv.getArgument(0), inv.getArgument(1))).when(cacheApiMock).set(anyString(), any(), anyInt());
+        doAnswer(inv -> cache.remove(inv.<String>getArgument(0))).when(cacheApiMock).remove(anyString());
+        return cache;
+    }
+
+    private Map<String, Object> expiringCache(final long[] clock) {
+        final Map<String, Object> cache = new HashMap<>();
+        final Map<String, Long> expirations = new HashMap<>();
+        doAnswer(inv -> {
+            final String key = inv.getArgument(0);
+            final Long expiration = expirations.get(key);
+            return expiration != null && clock[0] >= expiration ? Optional.empty() : Optional.ofNullable(cache.get(key));
+        }).when(cacheApiMock).get(anyString());
+        doAnswer(inv -> {
+            final int ttl = inv.getArgument(2);
+            expirations.put(inv.getArgument(0), ttl > 0 ? clock[0] + ttl : null);
+            return cache.put(inv.getArgument(0), inv.getArgument(1));
+        }).when(cacheApiMock).set(anyString(), any(), anyInt());
+        doAnswer(inv -> cache.remove(inv.<String>getArgument(0))).when(cacheApiMock).remove(anyString());
+        return cache;
+    }
+
+    private static PlayWebContext newSessionContext(final String sessionId) {
+        final Http.RequestHeader request = mock(Http.RequestHeader.class);
+        when(request.session()).thenReturn(new Http.Session(Map.of(Pac4jConstants.SESSION_ID, sessionId)));
+        when(request.attrs()).thenReturn(TypedMap.empty());
+        when(request.addAttr(any(), any())).thenReturn(request);
+        return new PlayWebContext(request);
+    }
+
+    private void login(final String sessionId, final String profileId) {
+        final CommonProfile profile = new CommonProfile();
+        profile.setId(profileId);
+        final LinkedHashMap<String, CommonProfile> profiles = new LinkedHashMap<>();
+        profiles.put(CLIENT_NAME, profile);
+        store.set(newSessionContext(sessionId), Pac4jConstants.USER_PROFILES, profiles);
+    }
+
+    @Test
+    public void testRevokeAllForProfile() {
+        store.setProfileIndex(true);
+        final Map<String, Object> cache = inMemoryCache();
+        login("s1", ID);
+        login("s2", ID);
+        login("s3", NAME);
+        assertEquals(3 + 2, cache.size());
+
+        assertEquals(2, store.revokeAllForProfile(ID));
+        assertFalse(cache.containsKey("s1"));
+        assertFalse(cache.containsKey("s2"));
+        assertTrue(cache.containsKey("s3"));
+        assertEquals(0, store.revokeAllForProfile(ID));
+    }
+
+    @Test
+    public void testProfileIndexOnDestroyAndRenew() {
+        store.setProfileIndex(true);
+        final Map<String, Object> cache = inMemoryCache();
+        login("s1", ID);
+        login("s2", ID);
+
+        store.destroySession(newSessionContext("s1"));
+        final PlayWebContext context = newSessionContext("s2");
+        store.renewSession(context);
+        final String newSessionId = store.getSessionId(context, false).get();
+        assertNotEquals("s2", newSessionId);
+        assertTrue(cache.containsKey(newSessionId));
+
+        assertEquals(1, store.revokeAllForProfile(ID));
+        assertFalse(cache.containsKey(newSessionId));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRevokeAllForProfileWithSlidingExpiration() {
+        store.setProfileIndex(true);
+        store.setSlidingExpiration(true);
+        final Map<String, Object> cache = inMemoryCache();
+        login("s1", ID);
+        // the session was indexed long ago, but it is kept alive by the sliding expiration
+        ((Map<String, Object>) cache.get(PlayCacheSessionStore.PROFILE_INDEX_PREFIX + ID)).put("s1", 0L);
+        login("s2", ID);
+
+        assertEquals(2, store.revokeAllForProfile(ID));
+        assertFalse(cache.containsKey("s1"));
+        assertFalse(cache.containsKey("s2"));
+    }
+
+    @Test
+    public void testRevokeAllForProfileAfterSessionWrite() {
+        store.setProfileIndex(true);
+        store.setTimeout(100);
+        store.getIndexStore().setTouchRatio(0);
+        final long[] clock = {0};
+        final Map<String, Object> cache = expiringCache(clock);
+        login("s1", ID);
+
+        // the session is written before it expires: its index entry must be extended as well
+        clock[0] = 90;
+        store.set(newSessionContext("s1"), KEY, VALUE);
+
+        clock[0] = 150;
+        assertEquals(1, store.revokeAllForProfile(ID));
+        assertFalse(cache.containsKey("s1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProfileIndexOnInPlaceUpdate() {
+        store.setProfileIndex(true);
+        inMemoryCache();
+        login("s1", ID);
+
+        final PlayWebContext context = newSessionContext("s1");
+        final Map<String, CommonProfile> profiles =
+            (Map<String, CommonProfile>) store.get(context, Pac4jConstants.USER_PROFILES).get();
+        final CommonProfile profile = new CommonProfile();
+        profile.setId(NAME);
+        profiles.clear();
+        profiles.put(CLIENT_NAME, profile);
+        store.set(context, Pac4jConstants.USER_PROFILES, profiles);
+
+        assertEquals(0, store.revokeAllForProfile(ID));
+        assertEquals(1, store.revokeAllForProfile(NAME));
+    }
 }
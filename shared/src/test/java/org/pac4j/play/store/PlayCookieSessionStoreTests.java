@@ -0,0 +1,360 @@
+package org.pac4j.play.store;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.profile.CommonProfile;
+import org.pac4j.core.util.Pac4jConstants;
+import org.pac4j.core.util.TestsConstants;
+import org.pac4j.core.util.serializer.JsonSerializer;
+import org.pac4j.play.PlayWebContext;
+import play.api.http.SessionConfiguration;
+import play.mvc.Http;
+import scala.Option;
+import scala.concurrent.duration.FiniteDuration;
+import play.mvc.Result;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests {@link PlayCookieSessionStore}.
+ *
+ * @since 13.0.4
+ */
+public final class PlayCookieSessionStoreTests implements TestsConstants {
+
+    private CountingDataEncrypter dataEncrypter;
+
+    private PlayCookieSessionStore store;
+
+    @Before
+    public void setUp() {
+        dataEncrypter = new CountingDataEncrypter();
+        store = new PlayCookieSessionStore(dataEncrypter);
+    }
+
+    private PlayWebContext newContext(final Http.Session session) {
+        return newContext(session, List.of());
+    }
+
+    private PlayWebContext newContext(final Http.Session session, final List<Http.Cookie> cookies) {
+        final Http.RequestHeader request = mock(Http.RequestHeader.class);
+        when(request.session()).thenReturn(session);
+        when(request.cookies()).thenReturn(new Http.Cookies() {
+            @Override
+            public Optional<Http.Cookie> get(final String name) {
+                return cookies.stream().filter(cookie -> cookie.name().equals(name)).findFirst();
+            }
+
+            @Override
+            public Iterator<Http.Cookie> iterator() {
+                return cookies.iterator();
+            }
+        });
+        return new PlayWebContext(request);
+    }
+
+    private static List<Http.Cookie> responseCookies(final PlayWebContext context) {
+        final List<Http.Cookie> cookies = new ArrayList<>();
+        context.supplementResponse(new Result(200)).cookies().forEach(cookies::add);
+        return cookies;
+    }
+
+    private static String largeValue() {
+        final StringBuilder sb = new StringBuilder();
+        final Random random = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            sb.append(random.nextInt());
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testGetSet() {
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, VALUE);
+        assertEquals(Optional.of(VALUE), store.get(context, KEY));
+        context.flushRequestSessionValues();
+        assertEquals(Optional.of(VALUE), store.get(newContext(context.getNativeSession()), KEY));
+    }
+
+    @Test
+    public void testDecodeOncePerRequest() {
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, VALUE);
+        store.set(context, NAME, VALUE);
+        context.flushRequestSessionValues();
+
+        final PlayWebContext newContext = newContext(context.getNativeSession());
+        store.get(newContext, KEY);
+        store.get(newContext, NAME);
+        store.get(newContext, CLIENT_NAME);
+        assertEquals(1, dataEncrypter.decryptions);
+    }
+
+    @Test
+    public void testWriteBackEncodesOnce() {
+        store.setWriteBack(true);
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, VALUE);
+        store.set(context, NAME, VALUE);
+        store.set(context, CLIENT_NAME, VALUE);
+        assertEquals(0, dataEncrypter.encryptions);
+        assertFalse(context.getNativeSession().get(store.getSessionName()).isPresent());
+        // the predicate does not write the session
+        assertTrue(context.hasResponseModifications());
+        assertEquals(0, dataEncrypter.encryptions);
+
+        context.flushRequestSessionValues();
+        assertEquals(1, dataEncrypter.encryptions);
+        assertTrue(context.getNativeSession().get(store.getSessionName()).isPresent());
+
+        context.flushRequestSessionValues();
+        assertEquals(1, dataEncrypter.encryptions);
+    }
+
+    @Test
+    public void testNoWriteBack() {
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, VALUE);
+        store.set(context, NAME, VALUE);
+        assertEquals(2, dataEncrypter.encryptions);
+        assertTrue(context.getNativeSession().get(store.getSessionName()).isPresent());
+    }
+
+    @Test
+    public void testDestroySession() {
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, VALUE);
+        context.flushRequestSessionValues();
+        store.destroySession(context);
+        assertFalse(store.get(context, KEY).isPresent());
+        assertFalse(store.getSessionId(context, false).isPresent());
+        context.flushRequestSessionValues();
+        assertFalse(context.getNativeSession().get(store.getSessionName()).isPresent());
+    }
+
+    @Test
+    public void testChunks() {
+        store.setMaxChunks(10);
+        store.setChunkSize(200);
+        final String value = largeValue();
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, value);
+        context.flushRequestSessionValues();
+        final List<Http.Cookie> cookies = responseCookies(context);
+        assertTrue(cookies.size() > 1);
+        for (int i = 0; i < cookies.size(); i++) {
+            assertEquals(store.getSessionName() + "." + i, cookies.get(i).name());
+            assertTrue(cookies.get(i).value().length() <= 200);
+        }
+        final Http.Session session = context.getNativeSession();
+        assertTrue(session.get(store.getSessionName()).get().length() < 200);
+
+        assertEquals(Optional.of(value), store.get(newContext(session, cookies), KEY));
+        // missing chunk
+        assertFalse(store.get(newContext(session, cookies.subList(1, cookies.size())), KEY).isPresent());
+    }
+
+    @Test
+    public void testExpireUnusedChunks() {
+        store.setMaxChunks(10);
+        store.setChunkSize(200);
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, largeValue());
+        context.flushRequestSessionValues();
+        final List<Http.Cookie> cookies = responseCookies(context);
+
+        final PlayWebContext newContext = newContext(context.getNativeSession(), cookies);
+        store.set(newContext, KEY, VALUE);
+        newContext.flushRequestSessionValues();
+        final List<Http.Cookie> newCookies = responseCookies(newContext);
+        assertEquals(cookies.size(), newCookies.size());
+        for (final Http.Cookie cookie : newCookies) {
+            assertEquals(Integer.valueOf(0), cookie.maxAge());
+        }
+        assertEquals(Optional.of(VALUE), store.get(newContext(newContext.getNativeSession()), KEY));
+    }
+
+    @Test
+    public void testTamperedChunk() {
+        store.setMaxChunks(10);
+        store.setChunkSize(200);
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, largeValue());
+        final List<Http.Cookie> cookies = new ArrayList<>(responseCookies(context));
+        final Http.Cookie first = cookies.get(0);
+        cookies.set(0, Http.Cookie.builder(first.name(), first.value().substring(1) + "A").build());
+        assertFalse(store.get(newContext(context.getNativeSession(), cookies), KEY).isPresent());
+    }
+
+    @Test
+    public void testInvalidChunksReference() {
+        store.setMaxChunks(10);
+        final Map<String, String> data = new HashMap<>();
+        data.put(store.getSessionName(), "*2000000000.x");
+        assertFalse(store.get(newContext(new Http.Session(data)), KEY).isPresent());
+    }
+
+    @Test
+    public void testChunkCookiesConfiguration() {
+        final SessionConfiguration sessionConfiguration = mock(SessionConfiguration.class);
+        when(sessionConfiguration.path()).thenReturn("/app");
+        when(sessionConfiguration.domain()).thenReturn(Option.apply("example.com"));
+        when(sessionConfiguration.sameSite()).thenReturn(Option.apply(Http.Cookie.SameSite.STRICT.asScala()));
+        when(sessionConfiguration.httpOnly()).thenReturn(true);
+        when(sessionConfiguration.secure()).thenReturn(true);
+        when(sessionConfiguration.maxAge()).thenReturn(Option.apply(FiniteDuration.apply(1, TimeUnit.HOURS)));
+        store.setSessionConfiguration(sessionConfiguration);
+        store.setMaxChunks(10);
+        store.setChunkSize(200);
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, largeValue());
+        for (final Http.Cookie cookie : responseCookies(context)) {
+            assertEquals("/app", cookie.path());
+            assertEquals("example.com", cookie.domain());
+            assertEquals(Optional.of(Http.Cookie.SameSite.STRICT), cookie.sameSite());
+            assertTrue(cookie.httpOnly());
+            assertTrue(cookie.secure());
+            assertEquals(Integer.valueOf(3600), cookie.maxAge());
+        }
+    }
+
+    @Test
+    public void testTooManyChunks() {
+        store.setMaxChunks(2);
+        store.setChunkSize(200);
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, KEY, largeValue());
+        context.flushRequestSessionValues();
+        assertFalse(context.getNativeSession().get(store.getSessionName()).isPresent());
+        assertTrue(responseCookies(context).isEmpty());
+    }
+
+    @Test
+    public void testProfileProjection() {
+        store.setProfileProjection(new ProfileAttributesProjection().deny(CLIENT_NAME, NAME));
+        final CommonProfile profile = new CommonProfile();
+        profile.setId(ID);
+        profile.setClientName(CLIENT_NAME);
+        profile.addAttribute(KEY, VALUE);
+        profile.addAttribute(NAME, VALUE);
+        final LinkedHashMap<String, CommonProfile> profiles = new LinkedHashMap<>();
+        profiles.put(CLIENT_NAME, profile);
+        final PlayWebContext context = newContext(new Http.Session(new HashMap<>()));
+        store.set(context, Pac4jConstants.USER_PROFILES, profiles);
+        context.flushRequestSessionValues();
+        // the profile of the current request is not updated
+        assertTrue(profile.containsAttribute(NAME));
+
+        final Map<String, CommonProfile> storedProfiles = (Map<String, CommonProfile>)
+            store.get(newContext(context.getNativeSession()), Pac4jConstants.USER_PROFILES).get();
+        final CommonProfile storedProfile = storedProfiles.get(CLIENT_NAME);
+        assertEquals(VALUE, storedProfile.getAttribute(KEY));
+        assertFalse(storedProfile.containsAttribute(NAME));
+    }
+
+    @Test
+    public void testReadLegacyGzipCookie() {
+        final Map<String, Object> values = new HashMap<>();
+        values.put(KEY, VALUE);
+        final byte[] gzipped = PlayCookieSessionStore.compressBytes(new JsonSerializer().serializeToBytes(values));
+        final Map<String, String> data = new HashMap<>();
+        data.put(store.getSessionName(), Base64.getEncoder().encodeToString(gzipped));
+
+        assertEquals(Optional.of(VALUE), store.get(newContext(new Http.Session(data)), KEY));
+    }
+
+    @Test
+    public void testCompressionCodecs() {
+        final byte[] small = VALUE.getBytes(StandardCharsets.UTF_8);
+        assertEquals(NoCompressionCodec.ID, store.compress(small)[0]);
+        assertArrayEquals(small, store.uncompress(store.compress(small)));
+
+        final Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            values.put(KEY + i, VALUE + i);
+        }
+        final byte[] large = store.getSerializer().serializeToBytes(values);
+        final byte[] deflated = store.compress(large);
+        assertEquals(DeflaterCompressionCodec.ID, deflated[0]);
+        assertTrue(deflated.length < GzipCompressionCodec.INSTANCE.compress(large).length);
+        assertArrayEquals(large, store.uncompress(deflated));
+
+        store.setCompressionCodec(GzipCompressionCodec.INSTANCE);
+        final byte[] gzipped = store.compress(large);
+        assertEquals(GzipCompressionCodec.ID, gzipped[0]);
+        assertArrayEquals(large, PlayCookieSessionStore.uncompressBytes(gzipped));
+        assertArrayEquals(large, store.uncompress(deflated));
+    }
+
+    @Test
+    public void testDictionaryChange() {
+        final Map<String, Object> values = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            values.put(KEY + i, VALUE + i);
+        }
+        final byte[] large = store.getSerializer().serializeToBytes(values);
+        final DeflaterCompressionCodec oldCodec =
+            new DeflaterCompressionCodec(DeflaterCompressionCodec.MIN_CUSTOM_ID, (KEY + VALUE).getBytes(StandardCharsets.UTF_8));
+        store.setCompressionCodec(oldCodec);
+        final byte[] oldCompressed = store.compress(large);
+        assertEquals(DeflaterCompressionCodec.MIN_CUSTOM_ID, oldCompressed[0]);
+
+        final byte newId = DeflaterCompressionCodec.MIN_CUSTOM_ID + 1;
+        store.setCompressionCodec(new DeflaterCompressionCodec(newId, (NAME + VALUE).getBytes(StandardCharsets.UTF_8)));
+        assertEquals(newId, store.compress(large)[0]);
+        assertNull(store.uncompress(oldCompressed));
+        store.setPreviousCompressionCodecs(List.of(oldCodec));
+        assertArrayEquals(large, store.uncompress(oldCompressed));
+        // the default dictionary is still readable
+        assertArrayEquals(large, store.uncompress(new DeflaterCompressionCodec().compress(large)));
+    }
+
+    @Test(expected = TechnicalException.class)
+    public void testReservedDictionaryId() {
+        new DeflaterCompressionCodec(DeflaterCompressionCodec.ID, (KEY + VALUE).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReuseCompressionResources() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            final byte[] bytes = (VALUE + i).repeat(i * 10 + 1).getBytes(StandardCharsets.UTF_8);
+            final ByteArrayOutputStream resultBao = new ByteArrayOutputStream();
+            try (GZIPOutputStream zipOutputStream = new GZIPOutputStream(resultBao)) {
+                zipOutputStream.write(bytes);
+            }
+            assertArrayEquals(resultBao.toByteArray(), GzipCompressionCodec.INSTANCE.compress(bytes));
+            assertArrayEquals(bytes, GzipCompressionCodec.INSTANCE.uncompress(resultBao.toByteArray()));
+
+            final DeflaterCompressionCodec codec = new DeflaterCompressionCodec();
+            assertArrayEquals(bytes, codec.uncompress(codec.compress(bytes)));
+        }
+    }
+
+    private static final class CountingDataEncrypter extends NoOpDataEncrypter {
+
+        private int decryptions;
+
+        private int encryptions;
+
+        @Override
+        public byte[] decrypt(final byte[] encryptedBytes) {
+            decryptions++;
+            return super.decrypt(encryptedBytes);
+        }
+
+        @Override
+        public byte[] encrypt(final byte[] rawBytes) {
+            encryptions++;
+            return super.encrypt(rawBytes);
+        }
+    }
+}
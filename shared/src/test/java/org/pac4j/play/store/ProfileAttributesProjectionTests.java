@@ -0,0 +1,86 @@
+package org.pac4j.play.store;
+
+import org.junit.Test;
+import org.pac4j.core.profile.CommonProfile;
+import org.pac4j.core.profile.UserProfile;
+import org.pac4j.core.util.TestsConstants;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link ProfileAttributesProjection}.
+ *
+ * @since 13.0.4
+ */
+public final class ProfileAttributesProjectionTests implements TestsConstants {
+
+    private static CommonProfile newProfile() {
+        final CommonProfile profile = new CommonProfile();
+        profile.setId(ID);
+        profile.setClientName(CLIENT_NAME);
+        profile.addAttribute(KEY, VALUE);
+        profile.addAttribute(NAME, VALUE);
+        profile.addAttribute("groups", VALUE);
+        return profile;
+    }
+
+    @Test
+    public void testAllowList() {
+        final CommonProfile original = newProfile();
+        final CommonProfile profile = new ProfileAttributesProjection().allow(CLIENT_NAME, KEY).project(original);
+        assertNotSame(original, profile);
+        assertEquals(3, original.getAttributes().size());
+        assertEquals(1, profile.getAttributes().size());
+        assertEquals(VALUE, profile.getAttribute(KEY));
+    }
+
+    @Test
+    public void testDenyListByClass() {
+        final CommonProfile profile = new ProfileAttributesProjection().deny(CommonProfile.class.getName(), "groups").project(newProfile());
+        assertEquals(2, profile.getAttributes().size());
+        assertFalse(profile.containsAttribute("groups"));
+    }
+
+    @Test
+    public void testClientNameFirst() {
+        final CommonProfile profile = new ProfileAttributesProjection()
+            .deny(CommonProfile.class.getName(), KEY)
+            .deny(CLIENT_NAME, NAME)
+            .project(newProfile());
+        assertTrue(profile.containsAttribute(KEY));
+        assertFalse(profile.containsAttribute(NAME));
+    }
+
+    @Test
+    public void testNoRule() {
+        final CommonProfile original = newProfile();
+        final CommonProfile profile = new ProfileAttributesProjection().deny("other", KEY).project(original);
+        assertSame(original, profile);
+        assertEquals(3, profile.getAttributes().size());
+    }
+
+    @Test
+    public void testRehydrate() {
+        final Map<String, Map<String, Object>> storage = new HashMap<>();
+        final ProfileAttributesProjection projection = new ProfileAttributesProjection().allow(CLIENT_NAME, KEY);
+        projection.setAttributesStore(new ProfileAttributesStore() {
+            @Override
+            public void save(final UserProfile profile, final Map<String, Object> attributes) {
+                storage.put(profile.getTypedId(), attributes);
+            }
+
+            @Override
+            public Map<String, Object> load(final UserProfile profile) {
+                return storage.get(profile.getTypedId());
+            }
+        });
+        final CommonProfile profile = projection.project(newProfile());
+        assertEquals(1, profile.getAttributes().size());
+        projection.rehydrate(profile);
+        assertEquals(3, profile.getAttributes().size());
+        assertEquals(VALUE, profile.getAttribute("groups"));
+    }
+}
@@ -0,0 +1,51 @@
+package org.pac4j.play.store;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link SecureRandomSessionIdGenerator}.
+ *
+ * @since 13.0.4
+ */
+public final class SecureRandomSessionIdGeneratorTests {
+
+    @Test
+    public void testFormat() {
+        final String id = new SecureRandomSessionIdGenerator().generate();
+        assertEquals(22, id.length());
+        assertTrue(id.matches("[A-Za-z0-9_-]+"));
+        assertEquals(43, new SecureRandomSessionIdGenerator(32).generate().length());
+    }
+
+    @Test
+    public void testUnique() throws InterruptedException {
+        final SecureRandomSessionIdGenerator generator = new SecureRandomSessionIdGenerator();
+        final Set<String> ids = new HashSet<>();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    final String id = generator.generate();
+                    synchronized (ids) {
+                        ids.add(id);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, ids.size());
+    }
+
+    @Test
+    public void testTooShort() {
+        assertThrows(IllegalArgumentException.class, () -> new SecureRandomSessionIdGenerator(8));
+    }
+}
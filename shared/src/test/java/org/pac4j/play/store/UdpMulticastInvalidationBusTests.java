@@ -0,0 +1,104 @@
+package org.pac4j.play.store;
+
+import org.junit.Test;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.TestsConstants;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link UdpMulticastInvalidationBus}.
+ *
+ * @since 13.0.4
+ */
+public final class UdpMulticastInvalidationBusTests implements TestsConstants {
+
+    private static final byte[] SECRET = "0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] OTHER_SECRET = "fedcba9876543210".getBytes(StandardCharsets.UTF_8);
+
+    private static Collection<String> decode(final UdpMulticastInvalidationBus.Codec codec, final ByteBuffer datagram) {
+        return codec.decode(datagram.array(), 0, datagram.position());
+    }
+
+    @Test
+    public void testHashKey() {
+        final UdpMulticastInvalidationBus.Codec codec = new UdpMulticastInvalidationBus.Codec(1, SECRET);
+        final String hash = codec.hash(KEY);
+        assertEquals(hash, new UdpMulticastInvalidationBus.Codec(2, SECRET).hash(KEY));
+        assertNotEquals(hash, codec.hash(VALUE));
+        assertNotEquals(hash, new UdpMulticastInvalidationBus.Codec(1, OTHER_SECRET).hash(KEY));
+        assertFalse(hash.contains(KEY));
+        assertEquals(22, hash.length());
+    }
+
+    @Test(expected = TechnicalException.class)
+    public void testSecretTooShort() {
+        new UdpMulticastInvalidationBus.Codec(1, new byte[8]);
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        final UdpMulticastInvalidationBus.Codec sender = new UdpMulticastInvalidationBus.Codec(1, SECRET);
+        final UdpMulticastInvalidationBus.Codec receiver = new UdpMulticastInvalidationBus.Codec(2, SECRET);
+        final List<String> keys = List.of(sender.hash(KEY), sender.hash(VALUE));
+
+        final List<ByteBuffer> datagrams = sender.encode(keys);
+        assertEquals(1, datagrams.size());
+        assertEquals(keys, decode(receiver, datagrams.get(0)));
+        assertTrue(sender.encode(List.of()).isEmpty());
+    }
+
+    @Test
+    public void testBatching() {
+        final UdpMulticastInvalidationBus.Codec sender = new UdpMulticastInvalidationBus.Codec(1, SECRET);
+        final UdpMulticastInvalidationBus.Codec receiver = new UdpMulticastInvalidationBus.Codec(2, SECRET);
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add(sender.hash(KEY + i));
+        }
+
+        final List<ByteBuffer> datagrams = sender.encode(keys);
+        // 1391 bytes of payload per datagram, 23 bytes per key
+        assertEquals(4, datagrams.size());
+        final List<String> received = new ArrayList<>();
+        for (final ByteBuffer datagram : datagrams) {
+            assertTrue(datagram.position() <= UdpMulticastInvalidationBus.Codec.MAX_DATAGRAM_LENGTH);
+            received.addAll(decode(receiver, datagram));
+        }
+        assertEquals(keys, received);
+    }
+
+    @Test
+    public void testKeyTooLong() {
+        final UdpMulticastInvalidationBus.Codec sender = new UdpMulticastInvalidationBus.Codec(1, SECRET);
+        final UdpMulticastInvalidationBus.Codec receiver = new UdpMulticastInvalidationBus.Codec(2, SECRET);
+
+        final List<ByteBuffer> datagrams = sender.encode(List.of("x".repeat(2000), KEY));
+        assertEquals(1, datagrams.size());
+        assertEquals(List.of(KEY), decode(receiver, datagrams.get(0)));
+    }
+
+    @Test
+    public void testIgnoreOwnDatagrams() {
+        final UdpMulticastInvalidationBus.Codec codec = new UdpMulticastInvalidationBus.Codec(1, SECRET);
+        final ByteBuffer datagram = codec.encode(List.of(codec.hash(KEY))).get(0);
+        assertTrue(decode(codec, datagram).isEmpty());
+        assertTrue(decode(new UdpMulticastInvalidationBus.Codec(1, OTHER_SECRET), datagram).isEmpty());
+    }
+
+    @Test
+    public void testIgnoreInvalidDatagrams() {
+        final UdpMulticastInvalidationBus.Codec codec = new UdpMulticastInvalidationBus.Codec(1, SECRET);
+        assertTrue(codec.decode(new byte[4], 0, 4).isEmpty());
+        final byte[] otherVersion = new byte[20];
+        otherVersion[0] = 1;
+        assertTrue(codec.decode(otherVersion, 0, otherVersion.length).isEmpty());
+    }
+}